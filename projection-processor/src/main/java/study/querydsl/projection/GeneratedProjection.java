@@ -0,0 +1,16 @@
+package study.querydsl.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 붙인 DTO 마다 리플렉션 없이 값을 채우는 {@code <Dto>Projection} FactoryExpression 을 생성한다.
+ * Projections.bean/fields 처럼 경로 이름이나 별칭(as("name"))으로 프로퍼티를 찾는다.
+ * DTO 에는 기본 생성자와 setter(또는 private 이 아닌 필드)가 있어야 한다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GeneratedProjection {
+}
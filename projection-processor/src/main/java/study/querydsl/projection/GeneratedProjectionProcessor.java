@@ -0,0 +1,169 @@
+package study.querydsl.projection;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@SupportedAnnotationTypes("study.querydsl.projection.GeneratedProjection")
+public class GeneratedProjectionProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GeneratedProjection.class)) {
+            if (element.getKind() != ElementKind.CLASS || element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "@GeneratedProjection is only supported on top-level classes", element);
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement dto) throws IOException {
+        String packageName = ((PackageElement) dto.getEnclosingElement()).getQualifiedName().toString();
+        String dtoName = dto.getSimpleName().toString();
+        String projectionName = dtoName + "Projection";
+        List<VariableElement> fields = ElementFilter.fieldsIn(dto.getEnclosedElements()).stream()
+                .filter(field -> !field.getModifiers().contains(Modifier.STATIC))
+                .filter(field -> !field.getModifiers().contains(Modifier.TRANSIENT))
+                .collect(Collectors.toList());
+
+        String qualifiedName = packageName.isEmpty() ? projectionName : packageName + "." + projectionName;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(qualifiedName, dto).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import com.querydsl.core.types.Expression;");
+            out.println("import com.querydsl.core.types.FactoryExpressionBase;");
+            out.println("import com.querydsl.core.types.Operation;");
+            out.println("import com.querydsl.core.types.Ops;");
+            out.println("import com.querydsl.core.types.Path;");
+            out.println("import com.querydsl.core.types.Visitor;");
+            out.println();
+            out.println("import javax.annotation.processing.Generated;");
+            out.println("import java.util.Arrays;");
+            out.println("import java.util.Collections;");
+            out.println("import java.util.List;");
+            out.println();
+            out.println("@Generated(\"" + GeneratedProjectionProcessor.class.getName() + "\")");
+            out.println("public final class " + projectionName + " extends FactoryExpressionBase<" + dtoName + "> {");
+            out.println();
+            out.println("    private static final long serialVersionUID = 1L;");
+            out.println();
+            out.println("    private final List<Expression<?>> args;");
+            out.println("    private final int[] properties;");
+            out.println();
+            out.println("    private " + projectionName + "(Expression<?>... args) {");
+            out.println("        super(" + dtoName + ".class);");
+            out.println("        this.args = Collections.unmodifiableList(Arrays.asList(args));");
+            out.println("        this.properties = new int[args.length];");
+            out.println("        for (int i = 0; i < args.length; i++) {");
+            out.println("            properties[i] = propertyIndex(propertyName(args[i]));");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    public static " + projectionName + " of(Expression<?>... args) {");
+            out.println("        return new " + projectionName + "(args);");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public List<Expression<?>> getArgs() {");
+            out.println("        return args;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + dtoName + " newInstance(Object... values) {");
+            out.println("        " + dtoName + " dto = new " + dtoName + "();");
+            out.println("        for (int i = 0; i < values.length; i++) {");
+            out.println("            Object value = values[i];");
+            out.println("            if (value == null) {");
+            out.println("                continue;");
+            out.println("            }");
+            out.println("            switch (properties[i]) {");
+            for (int i = 0; i < fields.size(); i++) {
+                VariableElement field = fields.get(i);
+                String name = field.getSimpleName().toString();
+                String cast = "(" + castType(field.asType()) + ") value";
+                out.println("                case " + i + ":");
+                if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                    out.println("                    dto." + setterName(name) + "(" + cast + ");");
+                } else {
+                    out.println("                    dto." + name + " = " + cast + ";");
+                }
+                out.println("                    break;");
+            }
+            out.println("                default:");
+            out.println("                    throw new IllegalStateException();");
+            out.println("            }");
+            out.println("        }");
+            out.println("        return dto;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public <R, C> R accept(Visitor<R, C> v, C context) {");
+            out.println("        return v.visit(this, context);");
+            out.println("    }");
+            out.println();
+            out.println("    private static int propertyIndex(String name) {");
+            out.println("        switch (name) {");
+            for (int i = 0; i < fields.size(); i++) {
+                out.println("            case \"" + fields.get(i).getSimpleName() + "\":");
+                out.println("                return " + i + ";");
+            }
+            out.println("            default:");
+            out.println("                throw new IllegalArgumentException(\"" + dtoName + " has no property '\" + name + \"'\");");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    private static String propertyName(Expression<?> expr) {");
+            out.println("        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {");
+            out.println("            return ((Path<?>) ((Operation<?>) expr).getArg(1)).getMetadata().getName();");
+            out.println("        }");
+            out.println("        if (expr instanceof Path) {");
+            out.println("            return ((Path<?>) expr).getMetadata().getName();");
+            out.println("        }");
+            out.println("        throw new IllegalArgumentException(\"Unsupported projection argument \" + expr + \", use as(\\\"property\\\")\");");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private String castType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static String setterName(String property) {
+        return "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Slf4j
+@RequiredArgsConstructor
+public class ConnectionHoldTimeFilter extends OncePerRequestFilter {
+
+    private final ConnectionHoldTimeMetrics metrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        metrics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long held = metrics.endRequest();
+            log.debug("{} {} held JDBC connections for {}ms", request.getMethod(), request.getRequestURI(),
+                    held / 1_000_000.0);
+        }
+    }
+}
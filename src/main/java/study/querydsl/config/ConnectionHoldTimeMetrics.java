@@ -0,0 +1,55 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 요청 하나가 JDBC 커넥션을 잡고 있던 시간의 합계를 집계한다.
+ * 커넥션 획득/반납이 요청 스레드에서 일어나는 경우에만 요청 단위로 묶인다.
+ */
+public class ConnectionHoldTimeMetrics {
+
+    private final ThreadLocal<long[]> currentRequest = new ThreadLocal<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder totalHoldNanos = new LongAdder();
+    private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0);
+
+    void beginRequest() {
+        currentRequest.set(new long[1]);
+    }
+
+    long endRequest() {
+        long[] holder = currentRequest.get();
+        currentRequest.remove();
+        long held = holder == null ? 0 : holder[0];
+        requests.increment();
+        totalHoldNanos.add(held);
+        maxHoldNanos.accumulate(held);
+        return held;
+    }
+
+    void recordHold(long nanos) {
+        long[] holder = currentRequest.get();
+        if (holder != null) {
+            holder[0] += nanos;
+        }
+    }
+
+    public Snapshot snapshot() {
+        long count = requests.sum();
+        long total = totalHoldNanos.sum();
+        return new Snapshot(count, count == 0 ? 0 : total / count / 1_000_000.0, maxHoldNanos.get() / 1_000_000.0);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Snapshot {
+        private final long requests;
+        private final double avgHoldMs;
+        private final double maxHoldMs;
+    }
+}
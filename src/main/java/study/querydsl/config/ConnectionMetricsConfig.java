@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+public class ConnectionMetricsConfig {
+
+    @Bean
+    public static ConnectionHoldTimeMetrics connectionHoldTimeMetrics() {
+        return new ConnectionHoldTimeMetrics();
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionHoldTimeDataSourcePostProcessor(ConnectionHoldTimeMetrics metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ConnectionHoldTimeDataSource)) {
+                    return new ConnectionHoldTimeDataSource((DataSource) bean, metrics);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ConnectionHoldTimeFilter connectionHoldTimeFilter(ConnectionHoldTimeMetrics metrics) {
+        return new ConnectionHoldTimeFilter(metrics);
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import study.querydsl.monitoring.SlowQueryRecorder;
+import study.querydsl.outbox.OutboxRecorder;
+import study.querydsl.outbox.OutboxRelay;
+import study.querydsl.repository.MemberCountEstimator;
+
+/**
+ * fast-startup 프로필: 스키마는 db/schema-h2.sql 로 만들고, 빈은 지연 생성하며, 데이터는 기동 후
+ * {@link study.querydsl.service.MemberSeeder} 가 백그라운드에서 넣는다.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    private static final String APPLICATION_AVAILABILITY = "applicationAvailability";
+
+    //Hibernate 리스너 등록, 스케줄 작업처럼 아무도 주입받지 않아도 떠 있어야 하는 빈은 지연 생성에서 뺀다
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(LazyLoadingGuard.class, OutboxRecorder.class,
+                OutboxRelay.class, MemberCountEstimator.class, SlowQueryRecorder.class);
+    }
+
+    //ApplicationAvailabilityAutoConfiguration 은 조건 없이 applicationAvailability 빈을 등록하므로 그 정의를 바꿔 끼운다
+    @Bean
+    static BeanDefinitionRegistryPostProcessor seedingAvailabilityRegistrar() {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                if (registry.containsBeanDefinition(APPLICATION_AVAILABILITY)) {
+                    registry.removeBeanDefinition(APPLICATION_AVAILABILITY);
+                }
+                registry.registerBeanDefinition(APPLICATION_AVAILABILITY, new RootBeanDefinition(SeedingAvailability.class));
+            }
+
+            @Override
+            public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            }
+        };
+    }
+}
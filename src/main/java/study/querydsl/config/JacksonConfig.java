@@ -0,0 +1,35 @@
+package study.querydsl.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * 스프링이 기본으로 추가하는 Smile/CBOR 컨버터는 부트의 ObjectMapper 설정(모듈, @JsonComponent)을 쓰지 않으므로
+ * 같은 Jackson2ObjectMapperBuilder 로 만든 컨버터로 바꾼다. Accept 헤더로 application/x-jackson-smile, application/cbor 를 고를 수 있다.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JacksonConfig {
+
+    //getter/setter/생성자 호출을 리플렉션 대신 LambdaMetafactory 로 만든 접근자로 한다
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
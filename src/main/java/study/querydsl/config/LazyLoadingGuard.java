@@ -0,0 +1,56 @@
+package study.querydsl.config;
+
+import org.hibernate.LazyInitializationException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * open-in-view 를 끈 상태에서 트랜잭션 밖의 지연 로딩(Member.team 프록시 초기화, Team.members 컬렉션 초기화)을
+ * 세션이 열려 있더라도 즉시 실패시킨다. 응답은 트랜잭션 안에서 DTO 로 모두 만들어져야 한다.
+ * 스프링 트랜잭션이 아니라 세션 자신의 트랜잭션을 보므로 직접 만든 EntityManager 의 트랜잭션(병렬 스캔, 샤드)도 허용된다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.jpa", name = "open-in-view", havingValue = "false")
+public class LazyLoadingGuard implements InitializeCollectionEventListener, LoadEventListener {
+
+    private final EntityManagerFactory emf;
+
+    public LazyLoadingGuard(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.INIT_COLLECTION, this);
+        registry.prependListeners(EventType.LOAD, this);
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        if (!event.getSession().isTransactionInProgress()) {
+            throw new LazyInitializationException("Lazy loading of " + event.getCollection().getRole()
+                    + " outside a transaction, fetch it in the query or map it to a DTO");
+        }
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD && !event.getSession().isTransactionInProgress()) {
+            throw new LazyInitializationException("Lazy loading of " + event.getEntityClassName() + "#" + event.getEntityId()
+                    + " outside a transaction, fetch it in the query or map it to a DTO");
+        }
+    }
+}
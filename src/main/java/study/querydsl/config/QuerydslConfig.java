@@ -0,0 +1,21 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.outbox.ChangeTrackingJPAQueryFactory;
+import study.querydsl.outbox.OutboxRecorder;
+import study.querydsl.repository.MemberCountEstimator;
+
+import javax.persistence.EntityManager;
+
+@Configuration
+public class QuerydslConfig {
+
+    //벌크 DML 도 outbox 에 기록되도록 변경 추적 팩토리를 등록한다
+    @Bean
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, OutboxRecorder outboxRecorder,
+                                           MemberCountEstimator countEstimator) {
+        return new ChangeTrackingJPAQueryFactory(em, outboxRecorder, countEstimator);
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.config;
+
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityState;
+import org.springframework.boot.availability.ReadinessState;
+
+/**
+ * 시드 데이터가 준비될 때까지 readiness 를 REFUSING_TRAFFIC 으로 보고한다.
+ * 부트는 기동이 끝나면 ACCEPTING_TRAFFIC 을 발행하므로 이벤트로 되돌리는 대신 조회 시점에 막는다.
+ */
+public class SeedingAvailability extends ApplicationAvailabilityBean {
+
+    private volatile boolean dataReady;
+
+    public void markDataReady() {
+        dataReady = true;
+    }
+
+    public boolean isDataReady() {
+        return dataReady;
+    }
+
+    //getReadinessState() 는 기본값을 받는 getState 를 쓰므로 둘 다 막는다
+    @Override
+    public <S extends AvailabilityState> S getState(Class<S> stateType, S defaultState) {
+        if (stateType == ReadinessState.class && !dataReady) {
+            return stateType.cast(ReadinessState.REFUSING_TRAFFIC);
+        }
+        return super.getState(stateType, defaultState);
+    }
+
+    @Override
+    public <S extends AvailabilityState> S getState(Class<S> stateType) {
+        if (stateType == ReadinessState.class && !dataReady) {
+            return stateType.cast(ReadinessState.REFUSING_TRAFFIC);
+        }
+        return super.getState(stateType);
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 기동 단계별 소요 시간. 각 단계는 이전 단계가 끝난 시점부터 잰다. (첫 단계는 JVM 시작부터)
+ * 시드 데이터 적재는 기동과 겹쳐서 진행되므로 단계와 별도로 기록한다.
+ */
+@Slf4j
+@Component
+public class StartupPhaseMetrics {
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long lastMarkMillis = jvmStartMillis;
+
+    private volatile long seedMillis = -1;
+    private volatile long seededRows;
+    private volatile long dataReadyMillis = -1;
+
+    //스키마 스크립트, EntityManagerFactory 생성, 싱글톤 생성, 웹 서버 기동까지 포함
+    @EventListener(ContextRefreshedEvent.class)
+    public void contextRefreshed() {
+        mark("context-refresh");
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void applicationStarted() {
+        mark("application-started");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applicationReady() {
+        mark("application-ready");
+        log.info("startup phases(ms)={}", snapshot().getPhases());
+    }
+
+    public void seedCompleted(long rows, long elapsedMillis) {
+        seededRows = rows;
+        seedMillis = elapsedMillis;
+        dataReadyMillis = System.currentTimeMillis() - jvmStartMillis;
+        log.info("seed rows={} elapsed(ms)={} data ready since jvm start(ms)={}", rows, elapsedMillis, dataReadyMillis);
+    }
+
+    private synchronized void mark(String phase) {
+        long now = System.currentTimeMillis();
+        phases.put(phase, now - lastMarkMillis);
+        lastMarkMillis = now;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(new LinkedHashMap<>(phases), lastMarkMillis - jvmStartMillis,
+                seededRows, seedMillis, dataReadyMillis);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Snapshot {
+        private final Map<String, Long> phases;
+        private final long totalMs;
+        private final long seededRows;
+        //시드를 하지 않았거나 끝나지 않았으면 -1
+        private final long seedMs;
+        private final long dataReadyMs;
+    }
+}
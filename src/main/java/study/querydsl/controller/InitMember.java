@@ -11,7 +11,8 @@ import study.querydsl.entity.Team;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 
-@Profile("local")
+//fast-startup 프로필에서는 MemberSeeder 가 기동 후 백그라운드로 넣는다
+@Profile("local & !fast-startup")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
@@ -0,0 +1,32 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.config.ConnectionHoldTimeMetrics;
+import study.querydsl.config.StartupPhaseMetrics;
+import study.querydsl.service.MemberAgeBuffer;
+
+@RestController
+@RequiredArgsConstructor
+public class InternalMetricsController {
+
+    private final ConnectionHoldTimeMetrics connectionHoldTimeMetrics;
+    private final MemberAgeBuffer memberAgeBuffer;
+    private final StartupPhaseMetrics startupPhaseMetrics;
+
+    @GetMapping("/internal/metrics/connection-hold")
+    public ConnectionHoldTimeMetrics.Snapshot connectionHoldTime() {
+        return connectionHoldTimeMetrics.snapshot();
+    }
+
+    @GetMapping("/internal/metrics/age-buffer")
+    public MemberAgeBuffer.Snapshot ageBuffer() {
+        return memberAgeBuffer.snapshot();
+    }
+
+    @GetMapping("/internal/metrics/startup")
+    public StartupPhaseMetrics.Snapshot startup() {
+        return startupPhaseMetrics.snapshot();
+    }
+}
@@ -1,12 +1,23 @@
 package study.querydsl.controller;
 
+import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.querydsl.binding.QuerydslPredicate;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.ApproximatePage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageResponse;
+import study.querydsl.entity.Member;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 
@@ -16,6 +27,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MemberController {
 
+    static final int MAX_BATCH_CONDITIONS = 50;
+    static final int MAX_V3_PAGE_SIZE = 100;
+    static final long MAX_V3_OFFSET = 10_000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
 
@@ -24,8 +39,45 @@ public class MemberController {
         return memberJpaRepository.search(condition);
     }
 
+    @PostMapping("/v1/members/batch")
+    public List<List<MemberTeamDto>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        if (conditions.size() > MAX_BATCH_CONDITIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "at most " + MAX_BATCH_CONDITIONS + " conditions per batch");
+        }
+        return memberRepository.searchBatch(conditions);
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    @GetMapping(value = "/v2/members", params = "approximate=true")
+    public ApproximatePage<MemberTeamDto> searchMemberV2Approximate(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageApproximate(condition, pageable);
+    }
+
+    @GetMapping(value = "/v2/members", params = "compact=true")
+    public PageResponse<MemberTeamDto> searchMemberV2Compact(MemberSearchCondition condition, Pageable pageable) {
+        return PageResponse.of(memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @GetMapping("/v2/members/slice")
+    public Slice<MemberTeamDto> searchMemberSlice(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    //임의 조건 조회는 페이지 크기를 줄이고, 깊은 offset 은 막는다 (더 넘기려면 /v2/members/slice 나 searchAfter)
+    @GetMapping("/v3/members")
+    public Page<MemberTeamDto> searchMemberV3(
+            @QuerydslPredicate(root = Member.class, bindings = MemberRepository.class) Predicate predicate,
+            Pageable pageable) {
+        if (pageable.isPaged() && pageable.getOffset() > MAX_V3_OFFSET) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset must not exceed " + MAX_V3_OFFSET);
+        }
+        int pageSize = pageable.isPaged() ? Math.min(pageable.getPageSize(), MAX_V3_PAGE_SIZE) : MAX_V3_PAGE_SIZE;
+        int pageNumber = pageable.isPaged() ? pageable.getPageNumber() : 0;
+        return memberRepository.searchPage(predicate, PageRequest.of(pageNumber, pageSize, pageable.getSort()));
+    }
 }
@@ -0,0 +1,32 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberReactiveRepository;
+
+//Spring MVC 위에서 Flux/Mono 를 반환한다. R2DBC 조회는 요청 스레드를 잡지 않지만 서블릿 요청은 비동기로 열린 채 유지된다
+@RestController
+@RequiredArgsConstructor
+public class MemberReactiveController {
+
+    private final MemberReactiveRepository memberReactiveRepository;
+
+    //한 줄에 한 건씩 쓰고, 클라이언트가 받아가는 만큼만 다음 행을 요청한다
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberTeamDto> streamMembers(MemberSearchCondition condition) {
+        return memberReactiveRepository.search(condition);
+    }
+
+    @GetMapping("/v2/members/reactive")
+    public Mono<Page<MemberTeamDto>> searchMemberReactive(MemberSearchCondition condition, Pageable pageable) {
+        return memberReactiveRepository.searchPage(condition, pageable);
+    }
+}
@@ -3,9 +3,11 @@ package study.querydsl.dto;
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import study.querydsl.projection.GeneratedProjection;
 
 @Data
 @NoArgsConstructor
+@GeneratedProjection
 public class MemberDto {
 
     private String username;
@@ -1,6 +1,11 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import lombok.Value;
+
+import java.util.Locale;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @Data
 public class MemberSearchCondition {
@@ -9,4 +14,60 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    //username 대소문자 무시
+    private boolean ignoreCase;
+
+    /**
+     * 앞뒤 공백을 제거하고 빈 문자열은 조건 없음(null)으로 바꾼 사본을 반환한다.
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(trimToNull(username));
+        normalized.setTeamName(trimToNull(teamName));
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        normalized.setIgnoreCase(ignoreCase);
+        return normalized;
+    }
+
+    /**
+     * ageGoe > ageLoe 처럼 만족하는 회원이 있을 수 없는 조건이면 true. DB 에 가지 않고 빈 결과로 응답한다.
+     */
+    public boolean hasEmptyRange() {
+        return ageGoe != null && ageLoe != null && ageGoe > ageLoe;
+    }
+
+    /**
+     * 회원을 거르는 조건이 하나도 없으면 true. (정규화된 조건에서 호출한다)
+     */
+    public boolean isBlank() {
+        return username == null && teamName == null && ageGoe == null && ageLoe == null;
+    }
+
+    /**
+     * 정규화된 조건 기준의 캐시 키. 같은 의미의 조건은 같은 키를 갖는다.
+     * 문자열로 이어 붙이지 않고 필드별로 비교하므로 값에 구분자나 "null" 이 들어 있어도 다른 조건과 겹치지 않는다.
+     */
+    public CacheKey cacheKey() {
+        MemberSearchCondition normalized = normalized();
+        String username = normalized.getUsername();
+        if (ignoreCase && username != null) {
+            username = username.toLowerCase(Locale.ROOT);
+        }
+        return new CacheKey(username, ignoreCase, normalized.getTeamName(),
+                normalized.getAgeGoe(), normalized.getAgeLoe());
+    }
+
+    @Value
+    public static class CacheKey {
+        String username;
+        boolean ignoreCase;
+        String teamName;
+        Integer ageGoe;
+        Integer ageLoe;
+    }
+
+    private static String trimToNull(String value) {
+        return hasText(value) ? value.trim() : null;
+    }
 }
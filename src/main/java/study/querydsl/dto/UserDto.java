@@ -2,9 +2,11 @@ package study.querydsl.dto;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import study.querydsl.projection.GeneratedProjection;
 
 @Data
 @NoArgsConstructor
+@GeneratedProjection
 public class UserDto {
 
     private String name;
@@ -1,10 +1,16 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_username_lower", columnList = "username_lower")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
@@ -17,6 +23,15 @@ public class Member {
     private String username;
     private int age;
 
+    //대소문자 무시 검색용. DB 가 lower(username) 으로 채우는 생성 컬럼이라 조회 조건으로만 쓴다
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @Column(name = "username_lower", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(username))")
+    private String usernameLower;
+
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -39,7 +54,13 @@ public class Member {
     }
 
     public void changeTeam(Team team) {
+        //이전 팀 컬렉션은 이미 로딩된 경우에만 정리한다. 로딩 전이면 나중에 DB 에서 읽을 때 반영된다
+        if (this.team != null && Hibernate.isInitialized(this.team)
+                && Hibernate.isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
+        //mappedBy 쪽 bag 은 로딩 전이면 add 를 큐에 쌓아두고 컬렉션을 초기화하지 않는다
         team.getMembers().add(this);
     }
 
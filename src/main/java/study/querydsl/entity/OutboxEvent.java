@@ -0,0 +1,45 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Member/Team 변경 이벤트. id 는 insert 시점에 정해지므로(IDENTITY) 커밋 순서와 다를 수 있다.
+ * 전달 순서는 커밋된 뒤 {@link study.querydsl.outbox.OutboxRelay} 가 붙이는 sequenceNumber 를 따른다.
+ * 이미 붙은 순번보다 작은 순번이 나중에 붙는 일은 없으므로 구독자는 sequenceNumber 를 읽은 위치로 써도 된다.
+ * 행은 {@link study.querydsl.outbox.OutboxRecorder} 가 변경과 같은 트랜잭션에서 JDBC 로 직접 기록한다.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_event_published", columnList = "published, sequence_number"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class OutboxEvent {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_event_id")
+    private Long id;
+
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+
+    @Column(length = 4000)
+    private String payload;
+
+    private LocalDateTime createdAt;
+    private boolean published;
+
+    //커밋된 뒤 relay 가 붙이는 전달 순번. 붙기 전에는 null
+    @Column(name = "sequence_number", unique = true)
+    private Long sequenceNumber;
+
+    public void assignSequenceNumber(long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * outbox 전달 순번 카운터. 행은 하나뿐이고 {@link study.querydsl.outbox.OutboxRelay} 가 비관적 잠금으로 읽고 올린다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class OutboxSequence {
+
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    @Column(name = "outbox_sequence_id")
+    private Long id;
+
+    private long nextValue;
+
+    public OutboxSequence(Long id) {
+        this.id = id;
+        this.nextValue = 1;
+    }
+
+    public long next() {
+        return nextValue++;
+    }
+}
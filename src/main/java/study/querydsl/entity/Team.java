@@ -1,6 +1,8 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -20,6 +22,12 @@ public class Team {
 
     private String name;
 
+    @Version
+    private Long version;
+
+    //회원 이동이 팀 버전을 올려서 팀 단위로 충돌하지 않도록 한다
+    @OptimisticLock(excluded = true)
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
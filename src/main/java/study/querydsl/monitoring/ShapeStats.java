@@ -0,0 +1,80 @@
+package study.querydsl.monitoring;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 쿼리 모양 하나의 누적 통계. 모든 카운터는 락 없이 갱신된다.
+ * 지연시간 분포는 마이크로초 기준 2의 거듭제곱 구간으로 기록해서 p99 를 근사한다.
+ */
+class ShapeStats {
+
+    private static final int BUCKETS = 40;
+    private static final int MAX_CALL_SITES = 5;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+    private final Set<String> callSites = ConcurrentHashMap.newKeySet();
+    private volatile String sampleSql;
+
+    void record(long elapsedNanos, String sqlWithValues, String callSite) {
+        count.increment();
+        totalNanos.add(elapsedNanos);
+        maxNanos.accumulate(elapsedNanos);
+        latencyBuckets.incrementAndGet(bucketOf(elapsedNanos));
+        sampleSql = sqlWithValues;
+        if (callSite != null && callSites.size() < MAX_CALL_SITES) {
+            callSites.add(callSite);
+        }
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    long getP99Nanos() {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = latencyBuckets.get(i);
+            total += snapshot[i];
+        }
+        long target = (long) Math.ceil(total * 0.99);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target && seen > 0) {
+                //구간 상한값
+                return Math.min(TimeUnit.MICROSECONDS.toNanos(1L << (i + 1)), getMaxNanos());
+            }
+        }
+        return 0;
+    }
+
+    Set<String> getCallSites() {
+        return callSites;
+    }
+
+    String getSampleSql() {
+        return sampleSql;
+    }
+
+    private static int bucketOf(long elapsedNanos) {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+}
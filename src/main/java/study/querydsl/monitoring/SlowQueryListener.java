@@ -0,0 +1,27 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 가 감싼 모든 statement 실행 시간을 보고 임계값을 넘은 것만 {@link SlowQueryRecorder} 에 넘긴다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "slow-query", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SlowQueryListener extends SimpleJdbcEventListener {
+
+    private final SlowQueryRecorder recorder;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (recorder.isSlow(timeElapsedNanos) && statementInformation.getSql() != null) {
+            recorder.record(statementInformation.getSql(), statementInformation.getSqlWithValues(), timeElapsedNanos);
+        }
+    }
+}
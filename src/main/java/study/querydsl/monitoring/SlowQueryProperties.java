@@ -0,0 +1,22 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "slow-query")
+@Getter @Setter
+public class SlowQueryProperties {
+
+    private boolean enabled = false;
+    private long thresholdMs = 100;
+    //호출 위치로 기록할 패키지
+    private String callSitePackage = "study.querydsl.repository";
+    private String reportPath = "logs/slow-query.json";
+    private long reportIntervalSeconds = 60;
+    //보관할 이전 리포트 파일 수 (slow-query.json.1 ~ .N)
+    private int reportHistory = 5;
+    private int topShapes = 20;
+}
@@ -0,0 +1,175 @@
+package study.querydsl.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 임계값을 넘은 쿼리를 모양별로 집계하고, 주기마다 해당 구간의 상위 모양을 JSON 리포트로 남긴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "slow-query", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SlowQueryRecorder {
+
+    private final SlowQueryProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private volatile Instant intervalStart = Instant.now();
+    private ScheduledExecutorService reporter;
+
+    @PostConstruct
+    public void start() {
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::writeReport, properties.getReportIntervalSeconds(),
+                properties.getReportIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reporter.shutdownNow();
+        writeReport();
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(properties.getThresholdMs());
+    }
+
+    public void record(String sql, String sqlWithValues, long elapsedNanos) {
+        String shape = QueryShapes.normalize(sql);
+        String callSite = findCallSite();
+        //compute 안에서 기록해야 writeReport 의 remove 와 겹쳐도 값이 빠지지 않는다
+        shapes.compute(shape, (key, stats) -> {
+            ShapeStats current = stats == null ? new ShapeStats() : stats;
+            current.record(elapsedNanos, sqlWithValues, callSite);
+            return current;
+        });
+        log.warn("slow query {}ms at {}: {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), callSite, sqlWithValues);
+    }
+
+    public List<ShapeReport> topShapes() {
+        return topShapes(shapes);
+    }
+
+    void writeReport() {
+        Instant start = intervalStart;
+        intervalStart = Instant.now();
+        //키마다 remove 로 가져온다. remove 이후의 기록은 새 항목으로 쌓여서 다음 리포트에 들어간다
+        Map<String, ShapeStats> finished = new HashMap<>();
+        for (String shape : shapes.keySet()) {
+            ShapeStats stats = shapes.remove(shape);
+            if (stats != null) {
+                finished.put(shape, stats);
+            }
+        }
+        if (finished.isEmpty()) {
+            return;
+        }
+
+        Report report = new Report(start, intervalStart, properties.getThresholdMs(), topShapes(finished));
+        try {
+            Path path = Paths.get(properties.getReportPath());
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            rotate(path);
+            objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        } catch (IOException e) {
+            log.warn("failed to write slow query report", e);
+        }
+    }
+
+    private List<ShapeReport> topShapes(Map<String, ShapeStats> source) {
+        return source.entrySet().stream()
+                .map(entry -> new ShapeReport(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingDouble(ShapeReport::getTotalMs).reversed())
+                .limit(properties.getTopShapes())
+                .collect(Collectors.toList());
+    }
+
+    private void rotate(Path path) throws IOException {
+        int history = properties.getReportHistory();
+        if (history <= 0) {
+            return;
+        }
+        Files.deleteIfExists(Paths.get(path + "." + history));
+        for (int i = history - 1; i >= 1; i--) {
+            Path older = Paths.get(path + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, Paths.get(path + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (Files.exists(path)) {
+            Files.move(path, Paths.get(path + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //느린 쿼리에서만 호출되므로 스택 탐색 비용은 감수한다
+    private String findCallSite() {
+        String prefix = properties.getCallSitePackage();
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(prefix))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse(null));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Report {
+        private final Instant from;
+        private final Instant to;
+        private final long thresholdMs;
+        private final List<ShapeReport> shapes;
+    }
+
+    @Getter
+    public static class ShapeReport {
+        private final String shape;
+        private final long count;
+        private final double totalMs;
+        private final double maxMs;
+        private final double p99Ms;
+        private final String sampleSql;
+        private final Set<String> callSites;
+
+        ShapeReport(String shape, ShapeStats stats) {
+            this.shape = shape;
+            this.count = stats.getCount();
+            this.totalMs = stats.getTotalNanos() / 1_000_000.0;
+            this.maxMs = stats.getMaxNanos() / 1_000_000.0;
+            this.p99Ms = stats.getP99Nanos() / 1_000_000.0;
+            this.sampleSql = stats.getSampleSql();
+            this.callSites = stats.getCallSites();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.outbox;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.engine.spi.SessionImplementor;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberCountEstimator;
+
+import javax.persistence.EntityManager;
+
+/**
+ * update()/delete() 로 실행한 벌크 DML 을 {@link OutboxRecorder} 에 기록하는 JPAQueryFactory.
+ * 벌크 연산은 엔티티 리스너를 거치지 않으므로 변경 이벤트를 남기려면 이 팩토리를 사용해야 한다.
+ * 같은 이유로 Member 벌크 연산은 {@link MemberCountEstimator} 에도 알린다.
+ */
+public class ChangeTrackingJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final OutboxRecorder outboxRecorder;
+    private final MemberCountEstimator countEstimator;
+
+    public ChangeTrackingJPAQueryFactory(EntityManager em, OutboxRecorder outboxRecorder,
+                                         MemberCountEstimator countEstimator) {
+        super(em);
+        this.em = em;
+        this.outboxRecorder = outboxRecorder;
+        this.countEstimator = countEstimator;
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(em, path, HQLTemplates.DEFAULT) {
+            @Override
+            public long execute() {
+                long rows = super.execute();
+                outboxRecorder.recordBulk(em.unwrap(SessionImplementor.class), path.getType(),
+                        "BULK_UPDATE", toString(), rows);
+                markStale(path);
+                return rows;
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(em, path, HQLTemplates.DEFAULT) {
+            @Override
+            public long execute() {
+                long rows = super.execute();
+                outboxRecorder.recordBulk(em.unwrap(SessionImplementor.class), path.getType(),
+                        "BULK_DELETE", toString(), rows);
+                markStale(path);
+                return rows;
+            }
+        };
+    }
+
+    private void markStale(EntityPath<?> path) {
+        if (Member.class.equals(path.getType())) {
+            countEstimator.markStale();
+        }
+    }
+}
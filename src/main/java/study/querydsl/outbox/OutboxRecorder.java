@@ -0,0 +1,192 @@
+package study.querydsl.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+import org.hibernate.Hibernate;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member/Team 의 insert/update/delete 와 벌크 DML 을 outbox_event 에 기록한다.
+ * 이벤트는 세션별로 모아 두었다가 커밋 직전(커밋 시점 flush 이후) 같은 커넥션으로 한 번에 insert 하므로
+ * 변경과 outbox 기록은 함께 커밋되거나 함께 롤백된다.
+ */
+@Component
+public class OutboxRecorder implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String INSERT_SQL = "insert into outbox_event "
+            + "(aggregate_type, aggregate_id, event_type, payload, created_at, published) "
+            + "values (?, ?, ?, ?, ?, false)";
+
+    private final EntityManagerFactory emf;
+    private final ObjectMapper objectMapper;
+    private final Map<SessionImplementor, List<PendingEvent>> pending = new ConcurrentHashMap<>();
+
+    public OutboxRecorder(EntityManagerFactory emf, ObjectMapper objectMapper) {
+        this.emf = emf;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (isTracked(event.getEntity())) {
+            enqueue(event.getSession(), event.getEntity(), event.getId(), "INSERT",
+                    payload(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (isTracked(event.getEntity())) {
+            enqueue(event.getSession(), event.getEntity(), event.getId(), "UPDATE",
+                    payload(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (isTracked(event.getEntity())) {
+            enqueue(event.getSession(), event.getEntity(), event.getId(), "DELETE",
+                    payload(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 엔티티 리스너를 거치지 않는 벌크 update/delete 기록. 대상 id 를 알 수 없으므로 JPQL 과 영향받은 행 수를 남긴다.
+     */
+    public void recordBulk(SessionImplementor session, Class<?> entityType, String eventType, String jpql, long rows) {
+        if (!Member.class.equals(entityType) && !Team.class.equals(entityType)) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("jpql", jpql);
+        payload.put("rows", rows);
+        add(session, new PendingEvent(entityType.getSimpleName(), null, eventType, toJson(payload)));
+    }
+
+    private boolean isTracked(Object entity) {
+        return entity instanceof Member || entity instanceof Team;
+    }
+
+    private void enqueue(EventSource session, Object entity, Serializable id, String eventType, Map<String, Object> payload) {
+        add(session, new PendingEvent(Hibernate.getClass(entity).getSimpleName(), (Long) id, eventType, toJson(payload)));
+    }
+
+    private void add(SessionImplementor session, PendingEvent event) {
+        pending.computeIfAbsent(session, key -> {
+            key.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::write);
+            key.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, s) -> pending.remove(key));
+            return new ArrayList<>();
+        }).add(event);
+    }
+
+    private void write(SessionImplementor session) {
+        List<PendingEvent> events = pending.remove(session);
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (PendingEvent event : events) {
+                    statement.setString(1, event.getAggregateType());
+                    if (event.getAggregateId() == null) {
+                        statement.setNull(2, Types.BIGINT);
+                    } else {
+                        statement.setLong(2, event.getAggregateId());
+                    }
+                    statement.setString(3, event.getEventType());
+                    statement.setString(4, event.getPayload());
+                    statement.setTimestamp(5, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private Map<String, Object> payload(EntityPersister persister, Object[] state) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        String[] propertyNames = persister.getPropertyNames();
+        for (int i = 0; i < propertyNames.length; i++) {
+            Object value = state[i];
+            if (value instanceof PersistentCollection || value instanceof java.util.Collection) {
+                continue;
+            }
+            if (value instanceof HibernateProxy) {
+                payload.put(propertyNames[i] + "Id", ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier());
+            } else if (value instanceof Team) {
+                payload.put(propertyNames[i] + "Id", ((Team) value).getId());
+            } else {
+                payload.put(propertyNames[i], value);
+            }
+        }
+        return payload;
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+
+    @Value
+    static class PendingEvent {
+        String aggregateType;
+        Long aggregateId;
+        String eventType;
+        String payload;
+    }
+}
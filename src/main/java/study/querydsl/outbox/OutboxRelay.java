@@ -0,0 +1,115 @@
+package study.querydsl.outbox;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.OutboxEvent;
+import study.querydsl.entity.OutboxSequence;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QOutboxEvent.outboxEvent;
+import static study.querydsl.entity.QOutboxSequence.outboxSequence;
+
+/**
+ * 커밋된 outbox 이벤트에 순번(sequenceNumber)을 붙이고, 아직 전달하지 않은(published = false) 이벤트를 순번 순서로
+ * 배치 조회해 구독자에게 넘긴 뒤 모두 성공하면 published 로 표시한다.
+ * 순번은 카운터 행을 잠근 트랜잭션에서 그 시점에 보이는(커밋된) 이벤트에만 붙이므로, 나중에 커밋된 이벤트는 항상 더 큰 순번을 받는다.
+ * 전달 후 표시 전에 실패하면 같은 순번으로 다시 전달된다(at-least-once).
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<OutboxSubscriber> subscribers;
+    private final int batchSize;
+
+    public OutboxRelay(JPAQueryFactory queryFactory, EntityManager em, TransactionTemplate transactionTemplate,
+                       ObjectProvider<OutboxSubscriber> subscribers,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize) {
+        this.queryFactory = queryFactory;
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.subscribers = subscribers;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relayScheduled() {
+        try {
+            while (relay() == batchSize) {
+                //밀린 이벤트가 있으면 바로 다음 배치
+            }
+        } catch (RuntimeException e) {
+            log.warn("outbox relay failed, will retry", e);
+        }
+    }
+
+    /**
+     * @return 전달한 이벤트 수
+     */
+    public int relay() {
+        assignSequenceNumbers();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> queryFactory
+                .selectFrom(outboxEvent)
+                .where(outboxEvent.published.isFalse(), outboxEvent.sequenceNumber.isNotNull())
+                .orderBy(outboxEvent.sequenceNumber.asc())
+                .limit(batchSize)
+                .fetch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> events = Collections.unmodifiableList(batch);
+        subscribers.orderedStream().forEach(subscriber -> subscriber.onEvents(events));
+
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(outboxEvent)
+                .set(outboxEvent.published, true)
+                .where(outboxEvent.id.in(ids))
+                .execute());
+        return batch.size();
+    }
+
+    /**
+     * 순번이 없는 이벤트에 카운터의 다음 값을 붙인다. 카운터 행을 잠그므로 relay 가 여럿이어도 순번이 겹치거나 되돌아가지 않는다.
+     *
+     * @return 순번을 붙인 이벤트 수
+     */
+    int assignSequenceNumbers() {
+        Integer assigned = transactionTemplate.execute(status -> {
+            OutboxSequence counter = queryFactory
+                    .selectFrom(outboxSequence)
+                    .where(outboxSequence.id.eq(OutboxSequence.SINGLETON_ID))
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .fetchOne();
+            if (counter == null) {
+                counter = new OutboxSequence(OutboxSequence.SINGLETON_ID);
+                em.persist(counter);
+            }
+            List<OutboxEvent> unassigned = queryFactory
+                    .selectFrom(outboxEvent)
+                    .where(outboxEvent.sequenceNumber.isNull())
+                    .orderBy(outboxEvent.id.asc())
+                    .limit(batchSize)
+                    .fetch();
+            for (OutboxEvent event : unassigned) {
+                event.assignSequenceNumber(counter.next());
+            }
+            return unassigned.size();
+        });
+        return assigned == null ? 0 : assigned;
+    }
+}
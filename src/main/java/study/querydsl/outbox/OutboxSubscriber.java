@@ -0,0 +1,13 @@
+package study.querydsl.outbox;
+
+import study.querydsl.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * {@link OutboxRelay} 가 OutboxEvent.sequenceNumber 순서로 배치 전달한다. 예외를 던지면 같은 배치가 다시 전달되므로(at-least-once)
+ * 구독자는 마지막으로 처리한 sequenceNumber 이하를 버리는 식으로 중복을 거를 수 있다. (id 는 커밋 순서가 아니므로 쓰면 안 된다)
+ */
+public interface OutboxSubscriber {
+    void onEvents(List<OutboxEvent> events);
+}
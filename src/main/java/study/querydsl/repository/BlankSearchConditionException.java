@@ -0,0 +1,16 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 페이지 없는 조회에 빈 조건(전체 회원)이 들어왔을 때.
+ * IllegalArgumentException 은 리포지토리 프록시에서 InvalidDataAccessApiUsageException 으로 바뀌므로 따로 둔다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BlankSearchConditionException extends RuntimeException {
+
+    public BlankSearchConditionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * id 목록 IN 조회를 고정 크기 chunk 로 나누고, chunk 마다 IN 목록 길이를 2의 거듭제곱으로 맞춘다.
+ * 길이가 1, 2, 4, ..., chunkSize 로만 나오므로 SQL 문자열(statement/plan 캐시)이 몇 개로 고정된다.
+ */
+public final class IdChunks {
+
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+
+    private IdChunks() {
+    }
+
+    /**
+     * 중복을 빼고 입력 순서대로 나눈 뒤, 모자란 자리는 마지막 id 를 반복해서 채운다. (결과는 같다)
+     */
+    public static <K> List<List<K>> chunk(Collection<K> ids, int chunkSize) {
+        if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("chunkSize must be a power of two: " + chunkSize);
+        }
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<K>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<K> chunk = new ArrayList<>(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+            int padded = Integer.highestOneBit(chunk.size()) == chunk.size()
+                    ? chunk.size()
+                    : Integer.highestOneBit(chunk.size()) << 1;
+            K last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * chunk 별로 조회해서 입력 id 순서대로 합친다. 없는 id 는 빠지고, 중복 id 는 한 번만 나온다.
+     * executor 가 있으면 chunk 들을 병렬로 조회한다.
+     */
+    public static <K, T> List<T> fetch(Collection<K> ids, int chunkSize, Executor executor,
+                                       Function<List<K>, List<T>> chunkQuery, Function<T, K> keyOf) {
+        List<List<K>> chunks = chunk(ids, chunkSize);
+        List<T> rows = new ArrayList<>();
+        if (executor == null || chunks.size() < 2) {
+            for (List<K> chunk : chunks) {
+                rows.addAll(chunkQuery.apply(chunk));
+            }
+        } else {
+            List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+            for (List<K> chunk : chunks) {
+                futures.add(CompletableFuture.supplyAsync(() -> chunkQuery.apply(chunk), executor));
+            }
+            try {
+                for (CompletableFuture<List<T>> future : futures) {
+                    rows.addAll(future.join());
+                }
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return inInputOrder(ids, rows, keyOf);
+    }
+
+    static <K, T> List<T> inInputOrder(Collection<K> ids, List<T> rows, Function<T, K> keyOf) {
+        Map<K, T> byKey = new HashMap<>(rows.size() * 2);
+        for (T row : rows) {
+            byKey.put(keyOf.apply(row), row);
+        }
+        List<T> ordered = new ArrayList<>(byKey.size());
+        for (K id : new LinkedHashSet<>(ids)) {
+            T row = byKey.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+}
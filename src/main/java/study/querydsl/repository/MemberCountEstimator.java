@@ -0,0 +1,245 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 팀 x 나이 구간별 회원 수 히스토그램으로 검색 결과 건수를 추정한다.
+ * 커밋된 insert/update/delete 마다 갱신된다. 리스너를 거치지 않는 Member 벌크 연산은
+ * ChangeTrackingJPAQueryFactory 가 커밋 후 {@link #markStale()} 로 알리고, 다음 주기에 {@link #rebuild()} 로 다시 센다.
+ * 다시 세기 전까지는 {@link #isStale()} 가 true 이므로 추정치를 쓰지 않는다.
+ * 다시 셀 때는 새 맵을 만든 뒤 참조를 바꾸므로 조회 중에 비어 있거나 반쯤 채워진 히스토그램이 보이지 않는다.
+ */
+@Component
+public class MemberCountEstimator implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    static final int AGE_BUCKET_WIDTH = 10;
+
+    private final EntityManagerFactory emf;
+    private final long approximateThreshold;
+    private volatile Map<BucketKey, LongAdder> histogram = new ConcurrentHashMap<>();
+    private final AtomicBoolean stale = new AtomicBoolean();
+    //변경 알림(리스너, markStale)마다 올라간다. 다시 세는 동안 바뀌었는지 확인하는 데 쓴다
+    private final AtomicLong generation = new AtomicLong();
+    private final Object staleLock = new Object();
+
+    public MemberCountEstimator(EntityManagerFactory emf,
+                                @Value("${member.count.approximate-threshold:10000}") long approximateThreshold) {
+        this.emf = emf;
+        this.approximateThreshold = approximateThreshold;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * 회원 수를 다시 세서 히스토그램을 통째로 바꾼다.
+     * 세는 동안 커밋된 변경은 GROUP BY 결과에 포함됐는지 알 수 없으므로, 그런 변경이 있었으면 낡은 상태로 남겨 다음 주기에 다시 센다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long startGeneration = generation.get();
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Tuple> rows = new JPAQueryFactory(em)
+                    .select(member.team.id, member.age, member.count())
+                    .from(member)
+                    .groupBy(member.team.id, member.age)
+                    .fetch();
+
+            Map<BucketKey, LongAdder> rebuilt = new ConcurrentHashMap<>();
+            for (Tuple row : rows) {
+                BucketKey key = new BucketKey(row.get(member.team.id), bucketOf(row.get(member.age)));
+                rebuilt.computeIfAbsent(key, k -> new LongAdder()).add(row.get(member.count()));
+            }
+            histogram = rebuilt;
+            synchronized (staleLock) {
+                stale.set(generation.get() != startGeneration);
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * 현재 트랜잭션이 있으면 커밋된 뒤에, 없으면 바로 히스토그램을 낡은 것으로 표시한다.
+     */
+    public void markStale() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markStaleNow();
+                }
+            });
+        } else {
+            markStaleNow();
+        }
+    }
+
+    private void markStaleNow() {
+        synchronized (staleLock) {
+            generation.incrementAndGet();
+            stale.set(true);
+        }
+    }
+
+    public boolean isStale() {
+        return stale.get();
+    }
+
+    @Scheduled(fixedDelayString = "${member.count.rebuild-interval-ms:10000}")
+    public void rebuildIfStale() {
+        //낡은 상태는 rebuild 가 끝난 뒤에만 풀린다
+        if (stale.get()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @param teamIds 대상 팀 id 목록, null 이면 전체 팀
+     */
+    public long estimate(Collection<Long> teamIds, Integer ageGoe, Integer ageLoe) {
+        double total = 0;
+        for (Map.Entry<BucketKey, LongAdder> entry : histogram.entrySet()) {
+            BucketKey key = entry.getKey();
+            if (teamIds != null && !teamIds.contains(key.getTeamId())) {
+                continue;
+            }
+            total += entry.getValue().sum() * coverage(key.getAgeBucket(), ageGoe, ageLoe);
+        }
+        return Math.round(total);
+    }
+
+    public long getApproximateThreshold() {
+        return approximateThreshold;
+    }
+
+    //구간 안에서는 나이가 균등하게 분포한다고 가정
+    private double coverage(int ageBucket, Integer ageGoe, Integer ageLoe) {
+        int low = ageBucket * AGE_BUCKET_WIDTH;
+        int high = low + AGE_BUCKET_WIDTH - 1;
+        if (ageGoe != null) {
+            low = Math.max(low, ageGoe);
+        }
+        if (ageLoe != null) {
+            high = Math.min(high, ageLoe);
+        }
+        return high < low ? 0 : (double) (high - low + 1) / AGE_BUCKET_WIDTH;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            adjust(event.getPersister(), event.getState(), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member && event.getOldState() != null) {
+            adjust(event.getPersister(), event.getOldState(), -1);
+            adjust(event.getPersister(), event.getState(), 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            adjust(event.getPersister(), event.getDeletedState(), -1);
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Member.class.equals(persister.getMappedClass());
+    }
+
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return requiresPostCommitHanding(persister);
+    }
+
+    private void adjust(EntityPersister persister, Object[] state, int delta) {
+        Long teamId = null;
+        Integer age = null;
+        String[] propertyNames = persister.getPropertyNames();
+        for (int i = 0; i < propertyNames.length; i++) {
+            if ("team".equals(propertyNames[i])) {
+                teamId = teamIdOf(state[i]);
+            } else if ("age".equals(propertyNames[i])) {
+                age = (Integer) state[i];
+            }
+        }
+        generation.incrementAndGet();
+        histogram.computeIfAbsent(new BucketKey(teamId, bucketOf(age)), k -> new LongAdder()).add(delta);
+    }
+
+    private Long teamIdOf(Object value) {
+        if (value instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier();
+        }
+        return value == null ? null : ((Team) value).getId();
+    }
+
+    private static int bucketOf(Integer age) {
+        return age == null ? 0 : Math.floorDiv(age, AGE_BUCKET_WIDTH);
+    }
+
+    @lombok.Value
+    static class BucketKey {
+        Long teamId;
+        int ageBucket;
+    }
+}
@@ -2,7 +2,6 @@ package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -17,6 +16,7 @@ import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 
 import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,9 +30,10 @@ public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory jpaQueryFactory;
 
-    public MemberJpaRepository(EntityManager em) {
+    //벌크 수정이 outbox 에 기록되도록 빈으로 등록된 팩토리를 쓴다
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory jpaQueryFactory) {
         this.em = em;
-        this.jpaQueryFactory = new JPAQueryFactory(em);
+        this.jpaQueryFactory = jpaQueryFactory;
     }
 
     public void save(Member member) {
@@ -102,6 +103,10 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        condition = condition.normalized();
+        if (condition.hasEmptyRange()) {
+            return Collections.emptyList();
+        }
         return jpaQueryFactory
                 .select(new QMemberTeamDto(
                         member.id,
@@ -112,29 +117,8 @@ public class MemberJpaRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(MemberSearchPredicates.JPA.of(condition))
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
 }
@@ -0,0 +1,177 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member_id 구간을 나눠서 전체 회원을 병렬로 읽는다.
+ * 구간마다 별도 EntityManager(커넥션 하나)에서 keyset 으로 chunkSize 건씩 읽고 바로 clear 하므로
+ * 워커당 메모리는 chunk 하나 크기로 제한된다. consumer 는 여러 워커 스레드에서 동시에 호출된다.
+ */
+@Slf4j
+@Component
+public class MemberParallelScanner {
+
+    //워커 수보다 구간을 많이 잘라서 구간마다 건수가 달라도 워커가 놀지 않게 한다
+    static final int RANGES_PER_WORKER = 4;
+
+    private final EntityManagerFactory emf;
+    private final int parallelism;
+    private final int chunkSize;
+
+    public MemberParallelScanner(EntityManagerFactory emf,
+                                 @Value("${member.scan.parallelism:0}") int parallelism,
+                                 @Value("${member.scan.chunk-size:1000}") int chunkSize) {
+        this.emf = emf;
+        //커넥션 풀(기본 10개)을 다 쓰지 않도록 기본값은 코어 수와 8 중 작은 값
+        this.parallelism = parallelism > 0 ? parallelism : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        this.chunkSize = chunkSize;
+    }
+
+    public ScanResult scan(Consumer<Member> consumer) {
+        return scan(null, consumer);
+    }
+
+    public ScanResult scan(Predicate predicate, Consumer<Member> consumer) {
+        long start = System.nanoTime();
+        List<long[]> ranges = split();
+        if (ranges.isEmpty()) {
+            return new ScanResult(0, 0, System.nanoTime() - start);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()), new ScanThreadFactory());
+        CompletionService<Long> completion = new ExecutorCompletionService<>(executor);
+        try {
+            for (long[] range : ranges) {
+                completion.submit(() -> scanRange(range[0], range[1], predicate, consumer));
+            }
+            long rows = 0;
+            for (int i = 0; i < ranges.size(); i++) {
+                rows += completion.take().get();
+            }
+            ScanResult result = new ScanResult(rows, ranges.size(), System.nanoTime() - start);
+            log.info("member scan rows={} ranges={} workers={} elapsed(ms)={}",
+                    rows, ranges.size(), Math.min(parallelism, ranges.size()), result.getElapsedNanos() / 1_000_000);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("member scan interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * [최소 id, 최대 id] 를 같은 폭의 반열린 구간 [from, to) 으로 나눈다.
+     */
+    private List<long[]> split() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Tuple bounds = new JPAQueryFactory(em)
+                    .select(member.id.min(), member.id.max())
+                    .from(member)
+                    .fetchOne();
+            List<long[]> ranges = new ArrayList<>();
+            if (bounds == null || bounds.get(member.id.min()) == null) {
+                return ranges;
+            }
+            long min = bounds.get(member.id.min());
+            long max = bounds.get(member.id.max());
+            long span = max - min + 1;
+            int count = (int) Math.min(span, (long) parallelism * RANGES_PER_WORKER);
+            long width = (span + count - 1) / count;
+            for (long from = min; from <= max; from += width) {
+                ranges.add(new long[]{from, Math.min(from + width, max + 1)});
+            }
+            return ranges;
+        } finally {
+            em.close();
+        }
+    }
+
+    private long scanRange(long from, long to, Predicate predicate, Consumer<Member> consumer) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            //구간 하나를 읽는 동안 같은 커넥션을 쓰고, 스냅샷을 남기지 않는다
+            em.getTransaction().begin();
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+            long rows = 0;
+            long cursor = from - 1;
+            List<Member> chunk;
+            do {
+                chunk = queryFactory
+                        .selectFrom(member)
+                        .leftJoin(member.team, team).fetchJoin()
+                        .where(member.id.gt(cursor), member.id.lt(to), UsernameLowerRewriter.rewrite(predicate))
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                for (Member m : chunk) {
+                    consumer.accept(m);
+                }
+                if (!chunk.isEmpty()) {
+                    cursor = chunk.get(chunk.size() - 1).getId();
+                    rows += chunk.size();
+                }
+                em.clear();
+            } while (chunk.size() == chunkSize);
+
+            em.getTransaction().commit();
+            return rows;
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class ScanResult {
+        private final long rows;
+        private final int ranges;
+        private final long elapsedNanos;
+    }
+
+    private static class ScanThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "member-scan-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLBindings;
+import com.querydsl.sql.SQLQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MemberRepositoryImpl.search 와 같은 조건을 querydsl-sql 로 SQL 로 만든 뒤 R2DBC 로 실행한다.
+ * 요청 스레드를 잡지 않고, 결과는 구독자가 요청한 만큼 흘려보낸다.
+ */
+@Repository
+public class MemberReactiveRepository {
+
+    private static final SMember m = SMember.member;
+    private static final STeam t = STeam.team;
+
+    //MemberSorts / MemberSearchPredicates 의 규칙을 SQL 메타모델에 적용한다
+    private static final Map<String, ComparableExpressionBase<?>> SORT_PROPERTIES =
+            MemberSorts.memberTeamProperties(m.memberId, m.username, m.age, t.teamId);
+    private static final MemberSearchPredicates PREDICATES =
+            new MemberSearchPredicates(m.username, m.usernameLower, t.name, m.age);
+
+    private final DatabaseClient client;
+    private final Configuration configuration;
+
+    public MemberReactiveRepository(DatabaseClient client, Configuration configuration) {
+        this.client = client;
+        this.configuration = configuration;
+    }
+
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalized();
+        if (normalized.hasEmptyRange()) {
+            return Flux.empty();
+        }
+        return fetch(memberTeamQuery(normalized).orderBy(m.memberId.asc()));
+    }
+
+    public Mono<Page<MemberTeamDto>> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition normalized = condition.normalized();
+        if (normalized.hasEmptyRange()) {
+            return Mono.just(new PageImpl<>(Collections.emptyList(), pageable, 0));
+        }
+        SQLQuery<?> contentQuery = memberTeamQuery(normalized)
+                .orderBy(MemberSorts.memberTeamOrders(pageable.getSort(), SORT_PROPERTIES));
+        //페이징이 없으면 전부 읽으므로 건수는 내용 크기와 같다
+        if (pageable.isUnpaged()) {
+            return fetch(contentQuery).collectList()
+                    .map(content -> new PageImpl<>(content, pageable, content.size()));
+        }
+        contentQuery.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        SQLQuery<?> countQuery = query()
+                .select(m.memberId.count())
+                .from(m)
+                .leftJoin(t).on(m.teamId.eq(t.teamId))
+                .where(PREDICATES.of(normalized));
+
+        Mono<Long> count = execute(countQuery)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+        return Mono.zip(fetch(contentQuery).collectList(), count)
+                .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    private SQLQuery<?> memberTeamQuery(MemberSearchCondition condition) {
+        return query()
+                .select(m.memberId, m.username, m.age, t.teamId, t.name)
+                .from(m)
+                .leftJoin(t).on(m.teamId.eq(t.teamId))
+                .where(PREDICATES.of(condition));
+    }
+
+    private Flux<MemberTeamDto> fetch(SQLQuery<?> query) {
+        return execute(query)
+                .map((row, metadata) -> new MemberTeamDto(
+                        row.get(0, Long.class),
+                        row.get(1, String.class),
+                        row.get(2, Integer.class),
+                        row.get(3, Long.class),
+                        row.get(4, String.class)))
+                .all();
+    }
+
+    private DatabaseClient.GenericExecuteSpec execute(SQLQuery<?> query) {
+        SQLBindings bindings = query.getSQL();
+        DatabaseClient.GenericExecuteSpec spec = client.sql(toNativeBindMarkers(bindings.getSQL()));
+        List<Object> params = bindings.getNullFriendlyBindings();
+        for (int i = 0; i < params.size(); i++) {
+            spec = spec.bind(i, params.get(i));
+        }
+        return spec;
+    }
+
+    //커넥션 없이 SQL 직렬화에만 쓴다
+    private SQLQuery<?> query() {
+        return new SQLQuery<Void>((Connection) null, configuration);
+    }
+
+    /**
+     * querydsl-sql 의 ? 를 H2 R2DBC 드라이버의 $1, $2 ... 로 바꾼다.
+     * 상수는 모두 바인딩으로 빠지므로 SQL 문자열 리터럴 안의 ? 는 고려하지 않는다.
+     */
+    static String toNativeBindMarkers(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                result.append('$').append(++index);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
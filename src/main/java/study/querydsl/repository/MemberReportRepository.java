@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 나이를 전체/팀 평균, 팀 최고령과 비교하는 리포트.
+ * JPQL 상관 서브쿼리(행마다 집계) 대신 윈도우 함수로 테이블을 한 번만 읽는다.
+ * 윈도우 함수 결과는 WHERE 에 쓸 수 없으므로 from 절 서브쿼리(report)로 감싸서 거른다.
+ * 팀 기준 리포트는 JPQL 의 memberSub.team = member.team 과 같게 팀이 없는 회원을 제외한다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberReportRepository {
+
+    private static final SMember m = SMember.member;
+    private static final STeam t = STeam.team;
+
+    private static final PathBuilder<Object> report = new PathBuilder<>(Object.class, "report");
+    private static final NumberPath<Long> memberId = report.getNumber("member_id", Long.class);
+    private static final StringPath username = report.getString("username");
+    private static final NumberPath<Integer> age = report.getNumber("age", Integer.class);
+    private static final NumberPath<Long> teamId = report.getNumber("team_id", Long.class);
+    private static final StringPath teamName = report.getString("team_name");
+    private static final NumberPath<Double> averageAge = report.getNumber("aggregate_age", Double.class);
+    private static final NumberPath<Integer> maxAge = report.getNumber("aggregate_age", Integer.class);
+
+    private final SQLQueryFactory queryFactory;
+
+    public MemberReportRepository(SQLQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    /**
+     * 전체 평균 나이 이상인 회원 (QuerydslBasicTest.subQueryGoe 와 같은 결과)
+     */
+    public List<MemberTeamDto> findAgeAtLeastAverage() {
+        SQLQuery<Tuple> inner = memberTeam(false, SQLExpressions.avg(m.age).over().as("aggregate_age"));
+        return fetchMemberTeam(inner, age.goe(averageAge));
+    }
+
+    /**
+     * 자기 팀 평균 나이 이상인 회원
+     */
+    public List<MemberTeamDto> findAgeAtLeastTeamAverage() {
+        SQLQuery<Tuple> inner = memberTeam(true, SQLExpressions.avg(m.age).over().partitionBy(m.teamId).as("aggregate_age"));
+        return fetchMemberTeam(inner, age.goe(averageAge));
+    }
+
+    /**
+     * 팀별 최고령 회원 (동갑이면 모두)
+     */
+    public List<MemberTeamDto> findOldestPerTeam() {
+        SQLQuery<Tuple> inner = memberTeam(true, SQLExpressions.max(m.age).over().partitionBy(m.teamId).as("aggregate_age"));
+        return fetchMemberTeam(inner, age.eq(maxAge));
+    }
+
+    /**
+     * 팀 안에서 나이 많은 순 순위
+     */
+    public List<MemberRankDto> rankByAgeWithinTeam() {
+        return queryFactory
+                .select(m.memberId, m.username, m.age, m.teamId, t.name,
+                        SQLExpressions.rank().over().partitionBy(m.teamId).orderBy(m.age.desc()).as("team_rank"))
+                .from(m)
+                .join(t).on(m.teamId.eq(t.teamId))
+                .orderBy(m.teamId.asc(), m.age.desc(), m.memberId.asc())
+                .fetch()
+                .stream()
+                .map(row -> new MemberRankDto(row.get(m.memberId), row.get(m.username), row.get(m.age),
+                        row.get(m.teamId), row.get(t.name), row.get(5, Number.class).longValue()))
+                .collect(Collectors.toList());
+    }
+
+    private SQLQuery<Tuple> memberTeam(boolean requireTeam, Expression<?> window) {
+        SQLQuery<Tuple> query = SQLExpressions
+                .select(m.memberId.as("member_id"), m.username.as("username"), m.age.as("age"),
+                        m.teamId.as("team_id"), t.name.as("team_name"), window)
+                .from(m);
+        return requireTeam
+                ? query.join(t).on(m.teamId.eq(t.teamId))
+                : query.leftJoin(t).on(m.teamId.eq(t.teamId));
+    }
+
+    private List<MemberTeamDto> fetchMemberTeam(SQLQuery<Tuple> inner, Predicate filter) {
+        return queryFactory
+                .select(memberId, username, age, teamId, teamName)
+                .from(inner, report)
+                .where(filter)
+                .orderBy(memberId.asc())
+                .fetch()
+                .stream()
+                .map(row -> new MemberTeamDto(row.get(memberId), row.get(username), row.get(age),
+                        row.get(teamId), row.get(teamName)))
+                .collect(Collectors.toList());
+    }
+}
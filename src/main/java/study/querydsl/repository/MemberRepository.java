@@ -1,12 +1,37 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.dsl.NumberPath;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.querydsl.binding.QuerydslBinderCustomizer;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 public interface MemberRepository extends JpaRepository<Member, Long>,
-        MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
+        MemberRepositoryCustom, QuerydslPredicateExecutor<Member>, QuerydslBinderCustomizer<QMember> {
     List<Member> findByUsername(String username);
+
+    /**
+     * {@code @QuerydslPredicate} 웹 바인딩. 인덱스가 있는 경로만 허용하고 나머지 파라미터는 무시한다.
+     * username 은 접두사(like 'x%'), age 는 값 하나면 eq / 둘 이상이면 최소~최대 범위, id 와 team.id 는 eq.
+     */
+    @Override
+    default void customize(QuerydslBindings bindings, QMember member) {
+        bindings.excludeUnlistedProperties(true);
+        bindings.including(member.id, member.username, member.age, member.team.id);
+        bindings.bind(member.id).first(NumberPath::eq);
+        bindings.bind(member.team.id).first(NumberPath::eq);
+        bindings.bind(member.username).first((path, value) -> path.startsWith(value));
+        bindings.bind(member.age).all((path, values) -> {
+            if (values.size() == 1) {
+                return Optional.of(path.eq(values.iterator().next()));
+            }
+            return Optional.of(path.between(Collections.min(values), Collections.max(values)));
+        });
+    }
 }
@@ -1,14 +1,28 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.ApproximatePage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    Page<MemberTeamDto> searchPage(Predicate predicate, Pageable pageable);
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    ApproximatePage<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable);
+    List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions);
+    List<MemberTeamDto> searchAfter(MemberSearchCondition condition, Long lastMemberId, int limit);
+    long moveMembers(Team team, Collection<Long> memberIds);
+    List<Member> findAllByIds(Collection<Long> memberIds);
+    List<Member> findAllByIds(Collection<Long> memberIds, boolean parallel);
 
 }
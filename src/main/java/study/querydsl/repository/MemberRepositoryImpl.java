@@ -1,18 +1,41 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.ApproximatePage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
@@ -22,14 +45,24 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final EntityManager em;
     private final JPAQueryFactory jpaQueryFactory;
+    private final MemberCountEstimator countEstimator;
+    private final Executor executor;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, JPAQueryFactory jpaQueryFactory, MemberCountEstimator countEstimator,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
         this.em = em;
-        this.jpaQueryFactory = new JPAQueryFactory(em);
+        //벌크 수정이 outbox 에 기록되도록 빈으로 등록된 팩토리를 쓴다
+        this.jpaQueryFactory = jpaQueryFactory;
+        this.countEstimator = countEstimator;
+        this.executor = executor;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        condition = condition.normalized();
+        if (condition.hasEmptyRange()) {
+            return Collections.emptyList();
+        }
         return jpaQueryFactory
                 .select(new QMemberTeamDto(
                         member.id,
@@ -40,17 +73,16 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(searchPredicate(condition))
                 .fetch();
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        condition = condition.normalized();
+        if (condition.hasEmptyRange()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
         List<MemberTeamDto> content = jpaQueryFactory
                 .select(new QMemberTeamDto(
                         member.id,
@@ -61,12 +93,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(searchPredicate(condition))
+                .orderBy(MemberSorts.memberTeamOrders(pageable.getSort()))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
@@ -75,31 +103,250 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .select(member.count())
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                .where(searchPredicate(condition));
         return PageableExecutionUtils.getPage(content, pageable, count::fetchOne);
     }
 
+    /**
+     * member 기준 조건(Querydsl 웹 바인딩 등)으로 DTO 페이지를 조회한다. 엔티티를 읽지 않는다.
+     */
+    @Override
+    public Page<MemberTeamDto> searchPage(Predicate predicate, Pageable pageable) {
+        Predicate where = UsernameLowerRewriter.rewrite(predicate);
+        List<MemberTeamDto> content = jpaQueryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .orderBy(MemberSorts.memberTeamOrders(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
 
+        //조건은 member 경로만 쓰므로(team.id 는 외래 키) count 에는 조인이 필요 없다
+        JPAQuery<Long> count = jpaQueryFactory
+                .select(member.count())
+                .from(member)
+                .where(where);
+        return PageableExecutionUtils.getPage(content, pageable, count::fetchOne);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        condition = condition.normalized();
+        if (condition.hasEmptyRange()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        List<MemberTeamDto> content = memberTeamQuery(condition)
+                .orderBy(MemberSorts.memberTeamOrders(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content.remove(pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    @Override
+    public ApproximatePage<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable) {
+        condition = condition.normalized();
+        if (condition.hasEmptyRange()) {
+            return new ApproximatePage<>(Collections.emptyList(), pageable, 0, false);
+        }
+        List<MemberTeamDto> content = memberTeamQuery(condition)
+                .orderBy(MemberSorts.memberTeamOrders(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        //username 조건은 선택도가 높아서 정확한 count 도 충분히 싸다. 벌크 연산 뒤 다시 세기 전이면 추정하지 않는다
+        if (!hasText(condition.getUsername()) && !countEstimator.isStale()) {
+            List<Long> teamIds = hasText(condition.getTeamName())
+                    ? jpaQueryFactory.select(team.id).from(team).where(team.name.eq(condition.getTeamName())).fetch()
+                    : null;
+            long estimated = countEstimator.estimate(teamIds, condition.getAgeGoe(), condition.getAgeLoe());
+            if (estimated >= countEstimator.getApproximateThreshold()) {
+                long total = Math.max(estimated, pageable.getOffset() + content.size());
+                return new ApproximatePage<>(content, pageable, total, true);
+            }
+        }
+
+        Page<MemberTeamDto> exact = PageableExecutionUtils.getPage(content, pageable, countQuery(condition)::fetchOne);
+        return new ApproximatePage<>(content, pageable, exact.getTotalElements(), false);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * 조건마다 일치 여부를 CASE 컬럼(1/0)으로 함께 조회해서 한 번의 쿼리로 조건별 결과를 나눈다.
+     * 반환 목록은 conditions 와 같은 순서다. 배치 조회에는 페이지가 없으므로 빈 조건(전체 회원)은 받지 않는다.
+     *
+     * @throws BlankSearchConditionException 빈 조건이 있으면
+     */
+    @Override
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+        List<Expression<?>> select = new ArrayList<>(List.of(member.id, member.username, member.age, team.id, team.name));
+        List<NumberExpression<Integer>> flags = new ArrayList<>();
+        BooleanBuilder anyCondition = new BooleanBuilder();
+        for (MemberSearchCondition condition : conditions) {
+            MemberSearchCondition normalized = condition.normalized();
+            if (normalized.isBlank()) {
+                throw new BlankSearchConditionException("Blank condition in batch search, use a paged search instead");
+            }
+            if (normalized.hasEmptyRange()) {
+                //항상 불일치
+                flags.add(Expressions.ZERO);
+                continue;
+            }
+            BooleanBuilder predicate = searchPredicate(normalized);
+            NumberExpression<Integer> flag = new CaseBuilder()
+                    .when(predicate).then(Expressions.ONE)
+                    .otherwise(Expressions.ZERO);
+            flags.add(flag);
+            select.add(flag);
+            anyCondition.or(predicate);
+        }
+
+        List<List<MemberTeamDto>> results = new ArrayList<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            results.add(new ArrayList<>());
+        }
+        //모든 조건이 불가능한 범위면 DB 를 조회하지 않는다
+        if (!anyCondition.hasValue()) {
+            return results;
+        }
+
+        List<Tuple> rows = jpaQueryFactory
+                .select(select.toArray(new Expression<?>[0]))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(anyCondition)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        for (Tuple row : rows) {
+            MemberTeamDto dto = new MemberTeamDto(row.get(member.id), row.get(member.username),
+                    row.get(member.age), row.get(team.id), row.get(team.name));
+            for (int i = 0; i < flags.size(); i++) {
+                NumberExpression<Integer> flag = flags.get(i);
+                if (flag == Expressions.ZERO) {
+                    continue;
+                }
+                if (Integer.valueOf(1).equals(row.get(flag))) {
+                    results.get(i).add(dto);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * member.id 기준 keyset 조회. lastMemberId 다음부터 limit 건을 id 순으로 반환한다.
+     */
+    @Override
+    public List<MemberTeamDto> searchAfter(MemberSearchCondition condition, Long lastMemberId, int limit) {
+        condition = condition.normalized();
+        if (condition.hasEmptyRange()) {
+            return Collections.emptyList();
+        }
+        return memberTeamQuery(condition)
+                .where(lastMemberId != null ? member.id.gt(lastMemberId) : null)
+                .orderBy(member.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * 회원들을 team 으로 옮긴다. 어느 쪽 팀의 members 컬렉션도 초기화하지 않으므로 비용은 팀 크기와 무관하다.
+     * 영속성 컨텍스트에 있는 회원은 changeTeam 으로 양쪽을 맞추고, 나머지는 벌크 update 한 번으로 옮긴다.
+     * 벌크 update 는 트랜잭션이 필요하므로 호출하는 쪽에 트랜잭션이 없으면 여기서 시작한다.
+     */
+    @Override
+    @Transactional
+    public long moveMembers(Team team, Collection<Long> memberIds) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+
+        long moved = 0;
+        List<Long> unmanagedIds = new ArrayList<>();
+        for (Long memberId : memberIds) {
+            Object managed = persistenceContext.getEntity(session.generateEntityKey(memberId, persister));
+            if (managed != null) {
+                ((Member) managed).changeTeam(team);
+                moved++;
+            } else {
+                unmanagedIds.add(memberId);
+            }
+        }
+        if (unmanagedIds.isEmpty()) {
+            return moved;
+        }
+
+        moved += jpaQueryFactory
+                .update(member)
+                .set(member.team, team)
+                //벌크 수정도 버전을 올려서 동시에 수정 중인 쪽이 충돌을 감지하게 한다
+                .set(member.version, member.version.add(1L))
+                .where(member.id.in(unmanagedIds))
+                .execute();
+        //이미 로딩된 새 팀 컬렉션에는 옮긴 회원만 읽어서 넣는다
+        if (Hibernate.isInitialized(team.getMembers())) {
+            team.getMembers().addAll(jpaQueryFactory
+                    .selectFrom(member)
+                    .where(member.id.in(unmanagedIds))
+                    .fetch());
+        }
+        return moved;
+    }
+
+    @Override
+    public List<Member> findAllByIds(Collection<Long> memberIds) {
+        return findAllByIds(memberIds, false);
+    }
+
+    /**
+     * parallel 이면 chunk 마다 다른 스레드(다른 EntityManager)에서 조회하므로 커밋된 데이터만 보이고,
+     * 반환되는 엔티티는 준영속 상태다.
+     */
+    @Override
+    public List<Member> findAllByIds(Collection<Long> memberIds, boolean parallel) {
+        return IdChunks.fetch(memberIds, IdChunks.DEFAULT_CHUNK_SIZE, parallel ? executor : null,
+                chunk -> jpaQueryFactory.selectFrom(member).where(member.id.in(chunk)).fetch(),
+                Member::getId);
+    }
+
+    private JPAQuery<MemberTeamDto> memberTeamQuery(MemberSearchCondition condition) {
+        return jpaQueryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicate(condition));
+    }
+
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        return jpaQueryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(searchPredicate(condition));
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private BooleanBuilder searchPredicate(MemberSearchCondition condition) {
+        return MemberSearchPredicates.JPA.of(condition);
     }
 
 }
@@ -0,0 +1,65 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.StringExpression;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Locale;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 을 조건식으로 바꾸는 규칙. 컬럼만 받아서 만들므로 JPA(Q 타입)와 querydsl-sql(S 타입)이 같은 규칙을 쓴다.
+ * 값이 없는 조건은 null 을 돌려주므로 where(...) 나 BooleanBuilder.and(...) 에 넘기면 빠진다.
+ */
+public final class MemberSearchPredicates {
+
+    //JPA 엔티티 기준. member, team 별칭으로 조인한 쿼리에서 쓴다
+    public static final MemberSearchPredicates JPA =
+            new MemberSearchPredicates(member.username, member.usernameLower, team.name, member.age);
+
+    private final StringExpression username;
+    private final StringExpression usernameLower;
+    private final StringExpression teamName;
+    private final NumberExpression<Integer> age;
+
+    public MemberSearchPredicates(StringExpression username, StringExpression usernameLower,
+                                  StringExpression teamName, NumberExpression<Integer> age) {
+        this.username = username;
+        this.usernameLower = usernameLower;
+        this.teamName = teamName;
+        this.age = age;
+    }
+
+    public BooleanBuilder of(MemberSearchCondition condition) {
+        return new BooleanBuilder()
+                .and(usernameEq(condition.getUsername(), condition.isIgnoreCase()))
+                .and(teamNameEq(condition.getTeamName()))
+                .and(ageGoe(condition.getAgeGoe()))
+                .and(ageLoe(condition.getAgeLoe()));
+    }
+
+    //username_lower 는 lower(username) 생성 컬럼이고 인덱스가 있다
+    public BooleanExpression usernameEq(String username, boolean ignoreCase) {
+        if (!hasText(username)) {
+            return null;
+        }
+        return ignoreCase ? usernameLower.eq(username.toLowerCase(Locale.ROOT)) : this.username.eq(username);
+    }
+
+    public BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? this.teamName.eq(teamName) : null;
+    }
+
+    public BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? age.goe(ageGoe) : null;
+    }
+
+    public BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 인덱스가 있는 컬럼만 정렬을 허용하고, 페이징 결과가 흔들리지 않도록 member.id 를 마지막 정렬 기준으로 붙인다.
+ */
+public final class MemberSorts {
+
+    //MemberTeamDto 프로퍼티 -> 인덱스가 있는 컬럼
+    private static final Map<String, ComparableExpressionBase<?>> MEMBER_TEAM_PROPERTIES =
+            memberTeamProperties(member.id, member.username, member.age, team.id);
+
+    //Member 엔티티 프로퍼티
+    private static final Set<String> MEMBER_PROPERTIES = Set.of("id", "username", "age", "team.id");
+
+    private MemberSorts() {
+    }
+
+    public static OrderSpecifier<?>[] memberTeamOrders(Sort sort) {
+        return memberTeamOrders(sort, MEMBER_TEAM_PROPERTIES);
+    }
+
+    /**
+     * querydsl-sql 처럼 다른 메타모델로 같은 허용 목록을 만든다. {@link #memberTeamOrders(Sort, Map)} 에 넘긴다.
+     */
+    public static Map<String, ComparableExpressionBase<?>> memberTeamProperties(
+            ComparableExpressionBase<?> memberId, ComparableExpressionBase<?> username,
+            ComparableExpressionBase<?> age, ComparableExpressionBase<?> teamId) {
+        return Map.of("memberId", memberId, "username", username, "age", age, "teamId", teamId);
+    }
+
+    public static OrderSpecifier<?>[] memberTeamOrders(Sort sort, Map<String, ComparableExpressionBase<?>> properties) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean hasTieBreaker = false;
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> expression = properties.get(order.getProperty());
+            if (expression == null) {
+                throw new UnsupportedSortException(order.getProperty());
+            }
+            orders.add(order.isAscending() ? expression.asc() : expression.desc());
+            hasTieBreaker |= "memberId".equals(order.getProperty());
+        }
+        if (!hasTieBreaker) {
+            orders.add(properties.get("memberId").asc());
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    public static Sort memberSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!MEMBER_PROPERTIES.contains(order.getProperty())) {
+                throw new UnsupportedSortException(order.getProperty());
+            }
+        }
+        return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by("id"));
+    }
+}
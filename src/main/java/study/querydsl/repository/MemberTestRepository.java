@@ -1,14 +1,15 @@
 package study.querydsl.repository;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import java.util.Collection;
 import java.util.List;
-import static org.springframework.util.StringUtils.isEmpty;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
@@ -30,11 +31,8 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                                               Pageable pageable) {
         JPAQuery<Member> query = selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
-        List<Member> content = getQuerydsl().applyPagination(pageable, query)
+                .where(MemberSearchPredicates.JPA.of(condition));
+        List<Member> content = getQuerydsl().applyPagination(resolvePageable(pageable), query)
                 .fetch();
         return PageableExecutionUtils.getPage(content, pageable,
                 query::fetchCount);
@@ -44,39 +42,32 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         return applyPagination(pageable, contentQuery -> contentQuery
                 .selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())));
+                .where(MemberSearchPredicates.JPA.of(condition)));
     }
     public Page<Member> applyPagination2(MemberSearchCondition condition,
                                          Pageable pageable) {
         return applyPagination(pageable, contentQuery -> contentQuery
                         .selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())),
+                        .where(MemberSearchPredicates.JPA.of(condition)),
                 countQuery -> countQuery
                         .selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe()))
+                        .where(MemberSearchPredicates.JPA.of(condition))
         );
     }
-    private BooleanExpression usernameEq(String username) {
-        return isEmpty(username) ? null : member.username.eq(username);
-    }
-    private BooleanExpression teamNameEq(String teamName) {
-        return isEmpty(teamName) ? null : team.name.eq(teamName);
+    public Slice<Member> applySlicing(MemberSearchCondition condition,
+                                      Pageable pageable) {
+        return applySlicing(pageable, contentQuery -> contentQuery
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.JPA.of(condition)));
     }
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe == null ? null : member.age.goe(ageGoe);
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return fetchByIds(member, member.id, ids, Member::getId);
     }
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe == null ? null : member.age.loe(ageLoe);
+    @Override
+    protected Sort resolveSort(Sort sort) {
+        return MemberSorts.memberSort(sort);
     }
 }
\ No newline at end of file
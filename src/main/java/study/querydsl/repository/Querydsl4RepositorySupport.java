@@ -2,12 +2,18 @@ package study.querydsl.repository;
 
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -18,6 +24,7 @@ import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 
@@ -41,7 +48,12 @@ public abstract class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+    //벌크 수정이 outbox 에 기록되도록 빈으로 등록된 팩토리를 쓴다
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        this.queryFactory = queryFactory;
     }
     @PostConstruct
     public void validate() {
@@ -67,7 +79,7 @@ public abstract class Querydsl4RepositorySupport {
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
+        List<T> content = getQuerydsl().applyPagination(resolvePageable(pageable),
                 jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
                 jpaQuery::fetchCount);
@@ -76,10 +88,51 @@ public abstract class Querydsl4RepositorySupport {
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
+        List<T> content = getQuerydsl().applyPagination(resolvePageable(pageable),
                 jpaContentQuery).fetch();
         JPAQuery countResult = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
+    protected <T> Slice<T> applySlicing(Pageable pageable,
+                                        Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        if (pageable.isUnpaged()) {
+            List<T> content = getQuerydsl().applySorting(resolveSort(pageable.getSort()),
+                    jpaQuery).fetch();
+            return new SliceImpl<>(content, pageable, false);
+        }
+        //limit + 1 건을 조회해서 다음 페이지 존재 여부만 판단 (count 쿼리 없음)
+        JPQLQuery<T> sorted = getQuerydsl().applySorting(resolveSort(pageable.getSort()), jpaQuery);
+        List<T> content = sorted
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content.remove(pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+    /**
+     * id 목록을 {@link IdChunks} 로 나눠서(2의 거듭제곱 길이 IN) 조회하고 입력 순서대로 돌려준다.
+     */
+    protected <T> List<T> fetchByIds(EntityPath<T> entity, NumberPath<Long> idPath, Collection<Long> ids,
+                                     Function<T, Long> idOf) {
+        return IdChunks.fetch(ids, IdChunks.DEFAULT_CHUNK_SIZE, null,
+                chunk -> selectFrom(entity).where(idPath.in(chunk)).fetch(), idOf);
+    }
+    /**
+     * 요청된 정렬을 검증하거나 바꿔야 하는 리포지토리에서 재정의한다. (허용 목록, tie-breaker 추가 등)
+     */
+    protected Sort resolveSort(Sort sort) {
+        return sort;
+    }
+    protected Pageable resolvePageable(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                resolveSort(pageable.getSort()));
+    }
 }
@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    //한 번의 fetch join 으로 members 를 채울 팀 수
+    static final int MEMBERS_BATCH_SIZE = 100;
+
+    private final EntityManager em;
+    private final JPAQueryFactory jpaQueryFactory;
+
+    public TeamRepositoryImpl(EntityManager em, JPAQueryFactory jpaQueryFactory) {
+        this.em = em;
+        this.jpaQueryFactory = jpaQueryFactory;
+    }
+
+    /**
+     * 팀 페이지를 먼저 조회하고, 그 팀들의 members 를 id IN 배치 단위 fetch join 으로 채운다.
+     * 컬렉션 fetch join 에 페이징을 걸지 않으므로 메모리 페이징(HHH000104)이 발생하지 않는다.
+     */
+    @Override
+    public Page<Team> findPageWithMembers(Pageable pageable) {
+        List<Team> teams = jpaQueryFactory
+                .selectFrom(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<Long> teamIds = teams.stream()
+                .map(Team::getId)
+                .collect(Collectors.toList());
+        for (int from = 0; from < teamIds.size(); from += MEMBERS_BATCH_SIZE) {
+            List<Long> batch = teamIds.subList(from, Math.min(from + MEMBERS_BATCH_SIZE, teamIds.size()));
+            //이미 영속성 컨텍스트에 있는 Team 인스턴스의 members 가 초기화된다
+            jpaQueryFactory
+                    .selectFrom(team).distinct()
+                    .leftJoin(team.members, member).fetchJoin()
+                    .where(team.id.in(batch))
+                    .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
+                    .fetch();
+        }
+
+        JPAQuery<Long> count = jpaQueryFactory
+                .select(team.count())
+                .from(team);
+        return PageableExecutionUtils.getPage(teams, pageable, count::fetchOne);
+    }
+}
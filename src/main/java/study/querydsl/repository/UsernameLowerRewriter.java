@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import study.querydsl.entity.Member;
+
+import java.util.regex.Pattern;
+
+/**
+ * 조건 안의 lower(member.username) 을 인덱스가 있는 생성 컬럼 member.usernameLower 로 바꾼다.
+ * username.lower() 연산과 function('lower', {0}) 템플릿 둘 다 대상이고, 별칭이 달라도 Member 경로면 바꾼다.
+ */
+public final class UsernameLowerRewriter extends ReplaceVisitor<Void> {
+
+    private static final UsernameLowerRewriter INSTANCE = new UsernameLowerRewriter();
+    private static final Pattern LOWER_TEMPLATE =
+            Pattern.compile("(?i)\\s*(function\\(\\s*'lower'\\s*,\\s*\\{0}\\s*\\)|lower\\(\\s*\\{0}\\s*\\))\\s*");
+
+    private UsernameLowerRewriter() {
+    }
+
+    public static Predicate rewrite(Predicate predicate) {
+        return predicate == null ? null : (Predicate) predicate.accept(INSTANCE, null);
+    }
+
+    @Override
+    public Expression<?> visit(Operation<?> expr, Void context) {
+        if (expr.getOperator() == Ops.LOWER) {
+            Expression<?> usernameLower = usernameLowerOf(expr.getArg(0));
+            if (usernameLower != null) {
+                return usernameLower;
+            }
+        }
+        return super.visit(expr, context);
+    }
+
+    @Override
+    public Expression<?> visit(TemplateExpression<?> expr, Void context) {
+        if (expr.getArgs().size() == 1 && LOWER_TEMPLATE.matcher(expr.getTemplate().toString()).matches()) {
+            Expression<?> usernameLower = usernameLowerOf((Expression<?>) expr.getArg(0));
+            if (usernameLower != null) {
+                return usernameLower;
+            }
+        }
+        return super.visit(expr, context);
+    }
+
+    private static Expression<?> usernameLowerOf(Expression<?> arg) {
+        if (!(arg instanceof Path)) {
+            return null;
+        }
+        PathMetadata metadata = ((Path<?>) arg).getMetadata();
+        Path<?> parent = metadata.getParent();
+        if (parent == null || !"username".equals(metadata.getName()) || !Member.class.equals(parent.getType())) {
+            return null;
+        }
+        return Expressions.stringPath(parent, "usernameLower");
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션 단위로 실행하고, 낙관적 락 충돌/락 타임아웃이면 지수 백오프(full jitter) 후 처음부터 다시 실행한다.
+ * 매 시도가 새 트랜잭션이므로 콜백은 엔티티를 다시 읽어야 한다.
+ */
+@Component
+public class ConcurrencyRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public ConcurrencyRetryTemplate(TransactionTemplate transactionTemplate,
+                                    @Value("${member.write.max-attempts:5}") int maxAttempts,
+                                    @Value("${member.write.base-backoff-ms:2}") long baseBackoffMillis,
+                                    @Value("${member.write.max-backoff-ms:100}") long maxBackoffMillis) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(TransactionCallback<T> action) {
+        return execute(action, maxAttempts);
+    }
+
+    public <T> T execute(TransactionCallback<T> action, int attempts) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transactionTemplate.execute(action);
+                commits.increment();
+                return result;
+            } catch (ConcurrencyFailureException e) {
+                conflicts.increment();
+                if (attempt >= attempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        long sleep = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while backing off", e);
+        }
+    }
+
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    //실패한 시도 수 (재시도로 성공한 경우 포함)
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    //재시도를 모두 써버린 경우
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+}
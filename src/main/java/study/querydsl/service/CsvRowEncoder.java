@@ -0,0 +1,129 @@
+package study.querydsl.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * CSV 행을 재사용하는 byte 버퍼에 바로 UTF-8 로 인코딩한다. 행마다 String/byte[] 를 만들지 않는다.
+ */
+class CsvRowEncoder {
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private boolean firstColumn = true;
+    private long bytesWritten;
+
+    CsvRowEncoder(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    CsvRowEncoder column(Long value) throws IOException {
+        separator();
+        if (value != null) {
+            ascii(Long.toString(value));
+        }
+        return this;
+    }
+
+    CsvRowEncoder column(int value) throws IOException {
+        separator();
+        ascii(Integer.toString(value));
+        return this;
+    }
+
+    CsvRowEncoder column(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        boolean quote = needsQuote(value);
+        if (quote) {
+            put('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                utf8(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                utf8(c);
+            }
+        }
+        if (quote) {
+            put('"');
+        }
+        return this;
+    }
+
+    void line(String ascii) throws IOException {
+        ascii(ascii);
+        endRow();
+    }
+
+    void endRow() throws IOException {
+        put('\n');
+        firstColumn = true;
+    }
+
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        bytesWritten += position;
+        position = 0;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten + position;
+    }
+
+    private void separator() throws IOException {
+        if (!firstColumn) {
+            put(',');
+        }
+        firstColumn = false;
+    }
+
+    private void ascii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            put(value.charAt(i));
+        }
+    }
+
+    private void utf8(int codePoint) throws IOException {
+        if (codePoint < 0x80) {
+            put(codePoint);
+        } else if (codePoint < 0x800) {
+            put(0xC0 | (codePoint >> 6));
+            put(0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            put(0xE0 | (codePoint >> 12));
+            put(0x80 | ((codePoint >> 6) & 0x3F));
+            put(0x80 | (codePoint & 0x3F));
+        } else {
+            put(0xF0 | (codePoint >> 18));
+            put(0x80 | ((codePoint >> 12) & 0x3F));
+            put(0x80 | ((codePoint >> 6) & 0x3F));
+            put(0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void put(int b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private static boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,205 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.IdChunks;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 나이 증감을 바로 쓰지 않고 회원별로 합쳐 두었다가 주기적으로(또는 쌓인 회원 수가 임계값을 넘으면) 반영한다.
+ * 같은 증감값끼리 묶어서 update ... set age = age + ? where member_id in (...) 한 번으로 쓴다.
+ * 반영되지 않은 증감은 최대 flush-interval-ms 동안 메모리에만 있다. (종료 시에는 flush-on-shutdown 으로 반영)
+ */
+@Slf4j
+@Component
+public class MemberAgeBuffer {
+
+    //member_id -> 아직 반영하지 않은 증감. merge 는 해시 버킷 단위로만 잠근다
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    //임계값 flush 가 이미 제출되어 있는지
+    private final AtomicBoolean flushSubmitted = new AtomicBoolean();
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final int maxPendingRows;
+    private final boolean flushOnShutdown;
+
+    private final LongAdder increments = new LongAdder();
+    private final LongAdder rowsFlushed = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+
+    public MemberAgeBuffer(JPAQueryFactory queryFactory, TransactionTemplate transactionTemplate,
+                           @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                           @Value("${member.age-buffer.max-pending-rows:10000}") int maxPendingRows,
+                           @Value("${member.age-buffer.flush-on-shutdown:true}") boolean flushOnShutdown) {
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.maxPendingRows = maxPendingRows;
+        this.flushOnShutdown = flushOnShutdown;
+    }
+
+    public void addAge(Long memberId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        pending.merge(memberId, (long) delta, Long::sum);
+        increments.increment();
+        //임계값을 넘긴 스레드 중 하나만 flush 를 제출한다
+        if (pending.size() >= maxPendingRows && flushSubmitted.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        flushQuietly();
+                    } finally {
+                        flushSubmitted.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                flushSubmitted.set(false);
+                log.warn("member age buffer flush rejected, will flush on schedule", e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.age-buffer.flush-interval-ms:1000}")
+    public void flushScheduled() {
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        if (!flushLock.tryLock()) {
+            //이미 다른 스레드가 반영 중
+            return;
+        }
+        try {
+            doFlush();
+        } catch (RuntimeException e) {
+            log.warn("member age buffer flush failed, will retry", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 지금까지 쌓인 증감을 모두 반영한다.
+     *
+     * @return 수정한 회원 수
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            return doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int doFlush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        //remove 한 뒤에 들어온 증감은 새 항목으로 쌓여서 다음 flush 에 반영된다
+        Map<Long, Long> drained = new HashMap<>();
+        for (Long memberId : pending.keySet()) {
+            Long delta = pending.remove(memberId);
+            if (delta != null && delta != 0) {
+                drained.put(memberId, delta);
+            }
+        }
+        Map<Long, List<Long>> idsByDelta = new HashMap<>();
+        drained.forEach((memberId, delta) -> idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(memberId));
+
+        try {
+            int executed = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Map.Entry<Long, List<Long>> group : idsByDelta.entrySet()) {
+                    int delta = Math.toIntExact(group.getKey());
+                    for (List<Long> chunk : IdChunks.chunk(group.getValue(), IdChunks.DEFAULT_CHUNK_SIZE)) {
+                        queryFactory
+                                .update(member)
+                                .set(member.age, member.age.add(delta))
+                                .set(member.version, member.version.add(1L))
+                                .where(member.id.in(chunk))
+                                .execute();
+                        count++;
+                    }
+                }
+                return count;
+            });
+            statements.add(executed);
+        } catch (RuntimeException e) {
+            //반영하지 못한 증감은 되돌려 놓는다
+            drained.forEach((memberId, delta) -> pending.merge(memberId, delta, Long::sum));
+            throw e;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        rowsFlushed.add(drained.size());
+        flushes.increment();
+        totalFlushNanos.add(elapsed);
+        maxFlushNanos.accumulate(elapsed);
+        return drained.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flushOnShutdown) {
+            int rows = flush();
+            log.info("member age buffer flushed {} rows on shutdown", rows);
+        } else if (!pending.isEmpty()) {
+            log.warn("member age buffer dropped {} pending rows on shutdown", pending.size());
+        }
+    }
+
+    public Snapshot snapshot() {
+        long received = increments.sum();
+        long rows = rowsFlushed.sum();
+        long count = flushes.sum();
+        return new Snapshot(received, rows, statements.sum(), pending.size(),
+                rows == 0 ? 0 : (double) received / rows,
+                count == 0 ? 0 : totalFlushNanos.sum() / count / 1_000_000.0,
+                maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Snapshot {
+        private final long increments;
+        private final long rowsFlushed;
+        private final long statements;
+        private final int pendingRows;
+        //증감 호출 수 / 실제로 수정한 행 수
+        private final double mergeRatio;
+        private final double avgFlushMs;
+        private final double maxFlushMs;
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.SeedingAvailability;
+import study.querydsl.config.StartupPhaseMetrics;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberCountEstimator;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * fast-startup 프로필에서 InitMember 대신 기동이 끝난 뒤 백그라운드로 같은 모양의 데이터를 넣는다.
+ * batchSize 건씩 트랜잭션 하나로 나눠 parallelism 개 스레드에서 넣고, 다 넣으면 readiness 를 연다.
+ * 실패하면 readiness 는 닫힌 채로 남는다.
+ */
+@Slf4j
+@Component
+@Profile("fast-startup")
+public class MemberSeeder {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberCountEstimator memberCountEstimator;
+    private final SeedingAvailability availability;
+    private final StartupPhaseMetrics startupPhaseMetrics;
+    private final ApplicationEventPublisher publisher;
+    private final int members;
+    private final int batchSize;
+    private final int parallelism;
+
+    public MemberSeeder(EntityManager em, TransactionTemplate transactionTemplate,
+                        MemberCountEstimator memberCountEstimator, SeedingAvailability availability,
+                        StartupPhaseMetrics startupPhaseMetrics, ApplicationEventPublisher publisher,
+                        @Value("${member.seed.members:100}") int members,
+                        @Value("${member.seed.batch-size:500}") int batchSize,
+                        @Value("${member.seed.parallelism:4}") int parallelism) {
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.memberCountEstimator = memberCountEstimator;
+        this.availability = availability;
+        this.startupPhaseMetrics = startupPhaseMetrics;
+        this.publisher = publisher;
+        this.members = members;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::seed, "member-seeder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void seed() {
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new SeedThreadFactory());
+        try {
+            long[] teamIds = transactionTemplate.execute(status -> {
+                Team teamA = new Team("teamA");
+                Team teamB = new Team("teamB");
+                em.persist(teamA);
+                em.persist(teamB);
+                return new long[]{teamA.getId(), teamB.getId()};
+            });
+
+            List<Future<?>> batches = new ArrayList<>();
+            for (int first = 1; first <= members; first += batchSize) {
+                int from = first;
+                int to = Math.min(members, first + batchSize - 1);
+                batches.add(workers.submit(() -> insertMembers(teamIds, from, to)));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+            //기동 직후 rebuild 가 적재 중인 커밋과 겹쳤을 수 있으므로 다시 센다
+            memberCountEstimator.rebuild();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("member seeding interrupted, readiness stays REFUSING_TRAFFIC");
+            return;
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("member seeding failed, readiness stays REFUSING_TRAFFIC", e);
+            return;
+        } finally {
+            workers.shutdownNow();
+        }
+
+        startupPhaseMetrics.seedCompleted(members, (System.nanoTime() - start) / 1_000_000);
+        availability.markDataReady();
+        AvailabilityChangeEvent.publish(publisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    private void insertMembers(long[] teamIds, int from, int to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = em.getReference(Team.class, teamIds[0]);
+            Team teamB = em.getReference(Team.class, teamIds[1]);
+            for (int i = from; i <= to; i++) {
+                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+                em.persist(new Member("member" + i, (i % 30) + 10, selectedTeam));
+            }
+        });
+    }
+
+    private static class SeedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "member-seed-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 회원 나이 변경/팀 이동의 쓰기 경로.
+ * ADAPTIVE 는 낙관적 락으로 시도하다가 재시도를 다 쓰면 그 행을 잠시 hot 으로 표시하고 비관적 락(select ... for update)으로 처리한다.
+ */
+@Service
+public class MemberWriteService {
+
+    public enum WriteStrategy {
+        OPTIMISTIC, PESSIMISTIC, ADAPTIVE
+    }
+
+    private final EntityManager em;
+    private final ConcurrencyRetryTemplate retryTemplate;
+    private final int optimisticAttempts;
+    private final long hotRowNanos;
+    //member_id -> hot 표시가 풀리는 시각(nanoTime)
+    private final Map<Long, Long> hotRows = new ConcurrentHashMap<>();
+
+    public MemberWriteService(EntityManager em, ConcurrencyRetryTemplate retryTemplate,
+                              @Value("${member.write.optimistic-attempts:3}") int optimisticAttempts,
+                              @Value("${member.write.hot-row-ms:1000}") long hotRowMillis) {
+        this.em = em;
+        this.retryTemplate = retryTemplate;
+        this.optimisticAttempts = optimisticAttempts;
+        this.hotRowNanos = hotRowMillis * 1_000_000;
+    }
+
+    public int addAge(Long memberId, int delta, WriteStrategy strategy) {
+        return write(memberId, strategy, member -> {
+            member.setAge(member.getAge() + delta);
+            return member.getAge();
+        });
+    }
+
+    public void changeTeam(Long memberId, Long teamId, WriteStrategy strategy) {
+        write(memberId, strategy, member -> {
+            member.changeTeam(em.getReference(Team.class, teamId));
+            return null;
+        });
+    }
+
+    private <T> T write(Long memberId, WriteStrategy strategy, Function<Member, T> change) {
+        switch (strategy) {
+            case OPTIMISTIC:
+                return retryTemplate.execute(status -> change.apply(find(memberId, LockModeType.NONE)));
+            case PESSIMISTIC:
+                return retryTemplate.execute(status -> change.apply(find(memberId, LockModeType.PESSIMISTIC_WRITE)));
+            default:
+                if (isHot(memberId)) {
+                    return retryTemplate.execute(status -> change.apply(find(memberId, LockModeType.PESSIMISTIC_WRITE)));
+                }
+                try {
+                    return retryTemplate.execute(status -> change.apply(find(memberId, LockModeType.NONE)), optimisticAttempts);
+                } catch (OptimisticLockingFailureException e) {
+                    markHot(memberId);
+                    return retryTemplate.execute(status -> change.apply(find(memberId, LockModeType.PESSIMISTIC_WRITE)));
+                }
+        }
+    }
+
+    //조회할 때만 지우면 다시 쓰이지 않는 행의 표시가 계속 쌓이므로, 새로 표시할 때 만료된 표시를 함께 정리한다
+    private void markHot(Long memberId) {
+        long now = System.nanoTime();
+        hotRows.values().removeIf(until -> until - now <= 0);
+        hotRows.put(memberId, now + hotRowNanos);
+    }
+
+    private boolean isHot(Long memberId) {
+        Long until = hotRows.get(memberId);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        hotRows.remove(memberId, until);
+        return false;
+    }
+
+    public int getHotRowCount() {
+        return hotRows.size();
+    }
+
+    private Member find(Long memberId, LockModeType lockMode) {
+        Member member = em.find(Member.class, memberId, lockMode);
+        if (member == null) {
+            throw new EntityNotFoundException("Member " + memberId);
+        }
+        return member;
+    }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 샤드마다 DataSource 와 EntityManagerFactory 를 만든다. 둘 다 빈으로 등록하지 않는다.
+ * (빈으로 등록하면 기본 DataSource/EntityManagerFactory 자동 설정이 빠진다)
+ * 팀 이름 해시로 샤드를 고르고, 샤드마다 시퀀스 시작값을 달리해서 id 가 샤드 간에 겹치지 않게 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "sharding", name = "enabled", havingValue = "true")
+public class ShardedEntityManagers {
+
+    //샤드 번호 << SHARD_ID_SHIFT 부터 id 를 발급한다
+    static final int SHARD_ID_SHIFT = 48;
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<LocalContainerEntityManagerFactoryBean> factoryBeans = new ArrayList<>();
+    private final List<EntityManagerFactory> factories = new ArrayList<>();
+
+    public ShardedEntityManagers(ShardingProperties properties, EntityManagerFactoryBuilder builder,
+                                 JpaProperties jpaProperties, HibernateProperties hibernateProperties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("sharding.enabled=true but no sharding.shards configured");
+        }
+        //기본 EntityManagerFactory 와 같은 hibernate 설정(ddl-auto, 네이밍 전략 등)을 쓴다
+        Map<String, Object> vendorProperties = hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings().ddlAuto(() -> "none"));
+        try {
+            for (int i = 0; i < properties.getShards().size(); i++) {
+                ShardingProperties.Shard shard = properties.getShards().get(i);
+                HikariDataSource dataSource = DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .url(shard.getUrl())
+                        .username(shard.getUsername())
+                        .password(shard.getPassword())
+                        .build();
+                dataSource.setPoolName("shard-" + i);
+                dataSources.add(dataSource);
+
+                LocalContainerEntityManagerFactoryBean factoryBean = builder
+                        .dataSource(dataSource)
+                        .packages(Member.class)
+                        .persistenceUnit("shard" + i)
+                        .properties(vendorProperties)
+                        .build();
+                factoryBean.afterPropertiesSet();
+                factoryBeans.add(factoryBean);
+                factories.add(factoryBean.getObject());
+
+                startSequenceAt(dataSource, (long) i << SHARD_ID_SHIFT);
+                log.info("shard {} ready: {}", i, shard.getUrl());
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return factories.size();
+    }
+
+    public int shardOfTeam(String teamName) {
+        return teamName == null ? 0 : Math.floorMod(teamName.hashCode(), size());
+    }
+
+    public int shardOfId(long id) {
+        return (int) (id >>> SHARD_ID_SHIFT);
+    }
+
+    public <T> T read(int shard, Function<EntityManager, T> work) {
+        EntityManager em = factories.get(shard).createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    public <T> T write(int shard, Function<EntityManager, T> work) {
+        EntityManager em = factories.get(shard).createEntityManager();
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    private void startSequenceAt(HikariDataSource dataSource, long base) {
+        if (base == 0) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            long next;
+            try (ResultSet rs = statement.executeQuery("select next value for hibernate_sequence")) {
+                rs.next();
+                next = rs.getLong(1);
+            }
+            //이미 샤드 구간에 있으면(재시작) 그대로 둔다
+            if (next < base) {
+                statement.execute("alter sequence hibernate_sequence restart with " + (base + 1));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("could not initialize id sequence of shard", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        factoryBeans.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,243 @@
+package study.querydsl.shard;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberSearchPredicates;
+import study.querydsl.repository.MemberSorts;
+import study.querydsl.repository.UnsupportedSortException;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 단위로 샤딩된 회원/팀 저장소.
+ * 팀 이름 조건이 있으면 그 팀이 있는 샤드 하나만 조회하고, 없으면 모든 샤드를 병렬로 조회해서 정렬 순서대로 k-way merge 한다.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "sharding", name = "enabled", havingValue = "true")
+public class ShardedMemberRepository {
+
+    //MemberSorts 의 정렬 허용 목록과 같은 프로퍼티
+    private static final Map<String, Comparator<MemberTeamDto>> PROPERTY_COMPARATORS = Map.of(
+            "memberId", Comparator.comparing(MemberTeamDto::getMemberId, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "username", Comparator.comparing(MemberTeamDto::getUsername, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "age", Comparator.comparingInt(MemberTeamDto::getAge),
+            "teamId", Comparator.comparing(MemberTeamDto::getTeamId, Comparator.nullsFirst(Comparator.naturalOrder()))
+    );
+
+    private final ShardedEntityManagers shards;
+    private final Executor executor;
+
+    public ShardedMemberRepository(ShardedEntityManagers shards,
+                                   @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    public Team saveTeam(String name) {
+        return shards.write(shards.shardOfTeam(name), em -> {
+            Team created = new Team(name);
+            em.persist(created);
+            return created;
+        });
+    }
+
+    /**
+     * 회원은 팀과 같은 샤드에 저장한다. 팀이 없는 회원은 0번 샤드에 저장한다.
+     */
+    public Member saveMember(String username, int age, String teamName) {
+        return shards.write(shards.shardOfTeam(teamName), em -> {
+            Team memberTeam = null;
+            if (teamName != null) {
+                memberTeam = new JPAQueryFactory(em).selectFrom(team).where(team.name.eq(teamName)).fetchFirst();
+                if (memberTeam == null) {
+                    throw new IllegalArgumentException("team not found: " + teamName);
+                }
+            }
+            Member saved = new Member(username, age, memberTeam);
+            em.persist(saved);
+            return saved;
+        });
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalized();
+        if (normalized.hasEmptyRange()) {
+            return Collections.emptyList();
+        }
+        List<List<MemberTeamDto>> perShard = scatter(normalized, em -> memberTeamQuery(em, normalized)
+                .orderBy(member.id.asc())
+                .fetch());
+        return merge(perShard, comparator(Sort.unsorted()), Long.MAX_VALUE);
+    }
+
+    /**
+     * 샤드마다 offset + pageSize 건을 같은 정렬로 읽어서 병합한 뒤 전체 기준 offset 을 적용한다. count 는 샤드별 합이다.
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition normalized = condition.normalized();
+        if (normalized.hasEmptyRange()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        Comparator<MemberTeamDto> comparator = comparator(pageable.getSort());
+        long window = pageable.getOffset() + pageable.getPageSize();
+
+        List<ShardPage> perShard = scatter(normalized, em -> {
+            List<MemberTeamDto> content = memberTeamQuery(em, normalized)
+                    .orderBy(MemberSorts.memberTeamOrders(pageable.getSort()))
+                    .limit(window)
+                    .fetch();
+            Long count = new JPAQueryFactory(em)
+                    .select(member.count())
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(MemberSearchPredicates.JPA.of(normalized))
+                    .fetchOne();
+            return new ShardPage(content, count == null ? 0 : count);
+        });
+
+        List<List<MemberTeamDto>> contents = new ArrayList<>();
+        long total = 0;
+        for (ShardPage page : perShard) {
+            contents.add(page.content);
+            total += page.total;
+        }
+        List<MemberTeamDto> merged = merge(contents, comparator, window);
+        List<MemberTeamDto> content = merged.size() > pageable.getOffset()
+                ? merged.subList((int) pageable.getOffset(), merged.size())
+                : Collections.emptyList();
+        return new PageImpl<>(new ArrayList<>(content), pageable, total);
+    }
+
+    private <T> List<T> scatter(MemberSearchCondition condition, Function<EntityManager, T> query) {
+        if (hasText(condition.getTeamName())) {
+            return List.of(shards.read(shards.shardOfTeam(condition.getTeamName()), query));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(CompletableFuture.supplyAsync(() -> shards.read(shard, query), executor));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return results;
+    }
+
+    /**
+     * 각 샤드 결과가 comparator 순서로 정렬되어 있다고 보고 앞에서부터 limit 건을 병합한다.
+     */
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedLists, Comparator<MemberTeamDto> comparator, long limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> comparator.compare(a.current, b.current));
+        for (List<MemberTeamDto> list : sortedLists) {
+            Iterator<MemberTeamDto> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator));
+            }
+        }
+        List<MemberTeamDto> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head head = heads.poll();
+            merged.add(head.current);
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    //DB 정렬(MemberSorts.memberTeamOrders)과 같은 순서. H2 는 오름차순에서 null 이 먼저 온다
+    static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = null;
+        boolean hasTieBreaker = false;
+        for (Sort.Order order : sort) {
+            Comparator<MemberTeamDto> property = PROPERTY_COMPARATORS.get(order.getProperty());
+            if (property == null) {
+                throw new UnsupportedSortException(order.getProperty());
+            }
+            property = order.isAscending() ? property : property.reversed();
+            comparator = comparator == null ? property : comparator.thenComparing(property);
+            hasTieBreaker |= "memberId".equals(order.getProperty());
+        }
+        if (!hasTieBreaker) {
+            Comparator<MemberTeamDto> byId = PROPERTY_COMPARATORS.get("memberId");
+            comparator = comparator == null ? byId : comparator.thenComparing(byId);
+        }
+        return comparator;
+    }
+
+    private JPAQuery<MemberTeamDto> memberTeamQuery(EntityManager em, MemberSearchCondition condition) {
+        return new JPAQueryFactory(em)
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.JPA.of(condition));
+    }
+
+    private static class ShardPage {
+        private final List<MemberTeamDto> content;
+        private final long total;
+
+        ShardPage(List<MemberTeamDto> content, long total) {
+            this.content = content;
+            this.total = total;
+        }
+    }
+
+    private static class Head {
+        private final Iterator<MemberTeamDto> iterator;
+        private MemberTeamDto current;
+
+        Head(Iterator<MemberTeamDto> iterator) {
+            this.iterator = iterator;
+            this.current = iterator.next();
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+}
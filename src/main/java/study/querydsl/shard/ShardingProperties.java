@@ -0,0 +1,26 @@
+package study.querydsl.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "sharding")
+@Getter @Setter
+public class ShardingProperties {
+
+    private boolean enabled = false;
+    //순서가 곧 샤드 번호다. 샤드를 추가/삭제하면 팀 배치가 바뀐다
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter @Setter
+    public static class Shard {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+
+import javax.sql.DataSource;
+
+@org.springframework.context.annotation.Configuration
+public class QuerydslSqlConfig {
+
+    @Bean
+    public Configuration querydslSqlConfiguration() {
+        return new Configuration(H2Templates.builder().build());
+    }
+
+    //JPA 트랜잭션 안에서는 같은 커넥션을 쓰고, 쿼리가 끝나면 커넥션을 돌려준다(release = true)
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(Configuration querydslSqlConfiguration, DataSource dataSource) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new TransactionAwareDataSourceProxy(dataSource), true);
+    }
+}
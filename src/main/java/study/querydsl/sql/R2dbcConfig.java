@@ -0,0 +1,37 @@
+package study.querydsl.sql;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * ConnectionFactory 를 빈으로 노출하지 않는다. 노출하면 DataSourceAutoConfiguration 이 빠져서 JPA 가 동작하지 않는다.
+ * 대신 풀을 R2dbcConnectionPool 빈으로 감싸서 종료 시 닫히게 한다.
+ */
+@Configuration
+public class R2dbcConfig {
+
+    @Bean
+    public R2dbcConnectionPool r2dbcConnectionPool(Environment environment) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(environment.getRequiredProperty("spring.r2dbc.url"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, environment.getProperty("spring.r2dbc.username", "sa"))
+                .option(ConnectionFactoryOptions.PASSWORD, environment.getProperty("spring.r2dbc.password", ""))
+                .build();
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options);
+        if (!(connectionFactory instanceof ConnectionPool)) {
+            throw new IllegalStateException("spring.r2dbc.url must use the r2dbc:pool: driver");
+        }
+        return new R2dbcConnectionPool((ConnectionPool) connectionFactory);
+    }
+
+    @Bean
+    public DatabaseClient r2dbcDatabaseClient(R2dbcConnectionPool connectionPool) {
+        return DatabaseClient.create(connectionPool.getConnectionFactory());
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.sql;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * R2DBC 커넥션 풀을 감싼 빈. 종료 시 풀을 닫아 열린 커넥션을 반납한다.
+ * ConnectionFactory 타입으로 노출하지 않도록 감싸 둔다. (R2dbcConfig 참고)
+ */
+public class R2dbcConnectionPool implements DisposableBean {
+
+    private final ConnectionPool pool;
+
+    public R2dbcConnectionPool(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return pool;
+    }
+
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+}
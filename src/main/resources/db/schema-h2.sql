@@ -0,0 +1,57 @@
+-- fast-startup 프로필용 스키마. ddl-auto: create 가 만드는 것과 같다 (엔티티를 바꾸면 함께 바꾼다)
+drop table if exists member cascade;
+drop table if exists team cascade;
+drop table if exists outbox_event cascade;
+drop table if exists outbox_sequence cascade;
+drop table if exists hello cascade;
+drop sequence if exists hibernate_sequence;
+
+create sequence hibernate_sequence start with 1 increment by 1;
+
+create table hello (
+    id bigint not null,
+    primary key (id)
+);
+
+create table team (
+    team_id bigint not null,
+    name varchar(255),
+    version bigint,
+    primary key (team_id)
+);
+
+create table member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    username_lower varchar(255) generated always as (lower(username)),
+    version bigint,
+    team_id bigint,
+    primary key (member_id)
+);
+
+create table outbox_event (
+    outbox_event_id bigint generated by default as identity,
+    aggregate_id bigint,
+    aggregate_type varchar(255),
+    created_at timestamp,
+    event_type varchar(255),
+    payload varchar(4000),
+    published boolean not null,
+    sequence_number bigint,
+    primary key (outbox_event_id),
+    constraint uk_outbox_event_sequence_number unique (sequence_number)
+);
+
+create table outbox_sequence (
+    outbox_sequence_id bigint not null,
+    next_value bigint not null,
+    primary key (outbox_sequence_id)
+);
+
+create index idx_member_username on member (username);
+create index idx_member_age on member (age);
+create index idx_member_username_lower on member (username_lower);
+create index idx_outbox_event_published on outbox_event (published, sequence_number);
+
+alter table member add constraint fk_member_team foreign key (team_id) references team;
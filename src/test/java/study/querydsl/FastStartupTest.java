@@ -0,0 +1,67 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.StartupPhaseMetrics;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//테스트용 application.yml 에는 fast-startup 문서가 없으므로 같은 설정을 직접 준다. validate 로 스키마 스크립트와 매핑이 맞는지 확인한다
+@ActiveProfiles("fast-startup")
+@SpringBootTest(properties = {
+        "spring.main.lazy-initialization=true",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema-h2.sql",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+        "member.seed.members=5000",
+        "member.seed.batch-size=500"
+})
+public class FastStartupTest {
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+    @Autowired
+    private StartupPhaseMetrics startupPhaseMetrics;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void readyOnlyAfterSeeding() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (applicationAvailability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(applicationAvailability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+
+        Long members = transactionTemplate.execute(status ->
+                em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        assertThat(members).isEqualTo(5000L);
+
+        StartupPhaseMetrics.Snapshot snapshot = startupPhaseMetrics.snapshot();
+        System.out.println("startup phases(ms) = " + snapshot.getPhases() + ", seed(ms) = " + snapshot.getSeedMs()
+                + ", data ready(ms) = " + snapshot.getDataReadyMs());
+        assertThat(snapshot.getPhases()).containsKeys("context-refresh", "application-started", "application-ready");
+        assertThat(snapshot.getSeededRows()).isEqualTo(5000L);
+        assertThat(snapshot.getDataReadyMs()).isGreaterThanOrEqualTo(snapshot.getSeedMs());
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.service.MemberAgeBuffer;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//버퍼는 별도 트랜잭션으로 반영하므로 데이터를 커밋하고 끝나면 지운다. 주기적 flush 는 테스트 중에 돌지 않게 늦춘다
+@SpringBootTest(properties = "member.age-buffer.flush-interval-ms=3600000")
+public class MemberAgeBufferTest {
+
+    static final int MEMBERS = 10;
+    static final int WRITERS = 16;
+    static final int INCREMENTS_PER_WRITER = 2_000;
+
+    @Autowired
+    private MemberAgeBuffer memberAgeBuffer;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    private List<Long> memberIds;
+
+    @BeforeEach
+    public void before() {
+        memberIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < MEMBERS; i++) {
+                Member member = new Member("member" + i, 0);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        memberAgeBuffer.flush();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @Test
+    public void incrementsAreMergedPerRow() throws Exception {
+        MemberAgeBuffer.Snapshot before = memberAgeBuffer.snapshot();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        long start = System.nanoTime();
+        for (int w = 0; w < WRITERS; w++) {
+            executor.execute(() -> {
+                for (int i = 0; i < INCREMENTS_PER_WRITER; i++) {
+                    memberAgeBuffer.addAge(memberIds.get(ThreadLocalRandom.current().nextInt(MEMBERS)), 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        memberAgeBuffer.flush();
+        long elapsed = System.nanoTime() - start;
+
+        long totalAge = transactionTemplate.execute(status -> em
+                .createQuery("select sum(m.age) from Member m", Long.class)
+                .getSingleResult());
+        assertThat(totalAge).isEqualTo((long) WRITERS * INCREMENTS_PER_WRITER);
+
+        MemberAgeBuffer.Snapshot after = memberAgeBuffer.snapshot();
+        long increments = after.getIncrements() - before.getIncrements();
+        long rows = after.getRowsFlushed() - before.getRowsFlushed();
+        assertThat(rows).isLessThan(increments);
+        System.out.println("increments = " + increments + ", rows updated = " + rows
+                + ", statements = " + (after.getStatements() - before.getStatements())
+                + ", increments/sec = " + String.format("%.0f", increments * 1e9 / elapsed)
+                + ", max flush(ms) = " + after.getMaxFlushMs());
+    }
+
+    @Test
+    public void sameDeltaRowsShareOneStatement() {
+        MemberAgeBuffer.Snapshot before = memberAgeBuffer.snapshot();
+        for (Long memberId : memberIds) {
+            memberAgeBuffer.addAge(memberId, 2);
+            memberAgeBuffer.addAge(memberId, 3);
+        }
+
+        int rows = memberAgeBuffer.flush();
+
+        assertThat(rows).isEqualTo(MEMBERS);
+        assertThat(memberAgeBuffer.snapshot().getStatements() - before.getStatements()).isEqualTo(1);
+        List<Integer> ages = transactionTemplate.execute(status -> em
+                .createQuery("select m.age from Member m", Integer.class)
+                .getResultList());
+        assertThat(ages).containsOnly(5);
+    }
+
+    @Test
+    public void thresholdFlushSubmittedOnce() throws Exception {
+        //제출만 세고 실행하지 않는 executor. flush 가 끝나기 전까지는 다시 제출하지 않아야 한다
+        List<Runnable> submitted = Collections.synchronizedList(new ArrayList<>());
+        MemberAgeBuffer buffer = new MemberAgeBuffer(null, null, submitted::add, 1, false);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        for (int w = 0; w < WRITERS; w++) {
+            long writer = w;
+            executor.execute(() -> {
+                for (int i = 0; i < 100; i++) {
+                    buffer.addAge(writer * 100 + i, 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(submitted).hasSize(1);
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.ApproximatePage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberCountEstimator;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//히스토그램은 커밋 후에만 갱신되므로 데이터를 커밋하고 끝나면 지운다. 주기적 rebuild 는 테스트 중에 돌지 않게 늦춘다
+@SpringBootTest(properties = {
+        "member.count.approximate-threshold=5",
+        "member.count.rebuild-interval-ms=3600000"
+})
+public class MemberCountEstimatorTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberCountEstimator countEstimator;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    public void before() {
+        countEstimator.rebuild();
+        countEstimator.rebuildIfStale();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        countEstimator.rebuild();
+    }
+
+    @Test
+    public void approximateTotalAndRebuildAfterBulkMove() {
+        Long[] teamIds = new Long[2];
+        List<Long> memberIds = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            teamIds[0] = teamA.getId();
+            teamIds[1] = teamB.getId();
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Member member = new Member("member" + i, 10 + i, teamA);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+
+        ApproximatePage<MemberTeamDto> teamA = memberRepository.searchPageApproximate(teamCondition("teamA"), PageRequest.of(0, 3));
+        assertThat(teamA.isTotalApproximate()).isTrue();
+        assertThat(teamA.getTotalElements()).isEqualTo(10);
+        assertThat(teamA.getContent()).hasSize(3);
+
+        //벌크 update 는 리스너를 거치지 않는다
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.moveMembers(em.getReference(Team.class, teamIds[1]), memberIds));
+        assertThat(countEstimator.isStale()).isTrue();
+
+        //다시 세기 전에는 정확한 count 로 대신한다
+        ApproximatePage<MemberTeamDto> staleTeamA = memberRepository.searchPageApproximate(teamCondition("teamA"), PageRequest.of(0, 3));
+        assertThat(staleTeamA.isTotalApproximate()).isFalse();
+        assertThat(staleTeamA.getTotalElements()).isZero();
+
+        countEstimator.rebuildIfStale();
+
+        assertThat(countEstimator.isStale()).isFalse();
+        ApproximatePage<MemberTeamDto> teamB = memberRepository.searchPageApproximate(teamCondition("teamB"), PageRequest.of(0, 3));
+        assertThat(teamB.isTotalApproximate()).isTrue();
+        assertThat(teamB.getTotalElements()).isEqualTo(10);
+        assertThat(memberRepository.searchPageApproximate(teamCondition("teamA"), PageRequest.of(0, 3)).getTotalElements())
+                .isZero();
+    }
+
+    private MemberSearchCondition teamCondition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberExportService.ExportResult;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class MemberExportServiceTest {
+
+    @Autowired
+    private MemberExportService memberExportService;
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void exportCsv() throws IOException {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("kim, \"jr\"", 20, teamA);
+        Member member3 = new Member("member3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportResult result = memberExportService.exportCsv(new MemberSearchCondition(), null, out);
+
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getLastMemberId()).isEqualTo(member3.getId());
+        assertThat(gunzip(out.toByteArray())).isEqualTo(
+                "member_id,username,age,team_id,team_name\n" +
+                member1.getId() + ",member1,10," + teamA.getId() + ",teamA\n" +
+                member2.getId() + ",\"kim, \"\"jr\"\"\",20," + teamA.getId() + ",teamA\n" +
+                member3.getId() + ",member3,30,,\n");
+
+        //이어받기
+        ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+        memberExportService.exportCsv(new MemberSearchCondition(), member2.getId(), resumed);
+        assertThat(gunzip(resumed.toByteArray())).isEqualTo(member3.getId() + ",member3,30,,\n");
+    }
+
+    private String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
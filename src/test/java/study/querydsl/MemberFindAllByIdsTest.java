@@ -0,0 +1,92 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.IdChunks;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//병렬 조회는 다른 스레드에서 실행되므로 데이터를 커밋하고 끝나면 지운다
+@SpringBootTest
+public class MemberFindAllByIdsTest {
+
+    static final int MEMBER_COUNT = 1_500;
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberTestRepository memberTestRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    public void before() {
+        ids = transactionTemplate.execute(status -> {
+            List<Long> saved = new ArrayList<>();
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                Member member = new Member("member" + i, i % 100);
+                em.persist(member);
+                saved.add(member.getId());
+            }
+            return saved;
+        });
+        Collections.shuffle(ids, new Random(42));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @Test
+    public void chunksArePaddedToPowersOfTwo() {
+        List<List<Long>> chunks = IdChunks.chunk(List.of(1L, 2L, 3L, 2L, 4L, 5L), 4);
+
+        assertThat(chunks).containsExactly(List.of(1L, 2L, 3L, 4L), List.of(5L));
+        assertThat(IdChunks.chunk(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), 8).get(1)).containsExactly(9L);
+        assertThat(IdChunks.chunk(List.of(1L, 2L, 3L), 8).get(0)).containsExactly(1L, 2L, 3L, 3L);
+    }
+
+    @Test
+    public void findAllByIdsKeepsInputOrder() {
+        List<Long> requested = new ArrayList<>(ids);
+        requested.add(-1L);
+
+        List<Member> result = memberRepository.findAllByIds(requested);
+
+        assertThat(result).extracting("id").containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    public void findAllByIdsInParallel() {
+        List<Member> result = memberRepository.findAllByIds(ids, true);
+
+        assertThat(result).extracting("id").containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    public void querydsl4RepositorySupportFetchByIds() {
+        List<Long> requested = ids.subList(0, 10);
+
+        List<Member> result = transactionTemplate.execute(status -> memberTestRepository.findAllByIds(requested));
+
+        assertThat(result).extracting("id").containsExactlyElementsOf(requested);
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.PageResponse;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class MemberJsonSerializationTest {
+
+    private static final int ROUNDS = 2000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Test
+    public void serializerMatchesBeanSerializer() throws Exception {
+        //기본 ObjectMapper 는 리플렉션 BeanSerializer 를 쓴다
+        ObjectMapper reflective = new ObjectMapper();
+        for (MemberTeamDto dto : List.of(
+                new MemberTeamDto(1L, "member1", 10, 2L, "teamA"),
+                new MemberTeamDto(3L, "member2", 20, null, null),
+                new MemberTeamDto(null, null, 0, null, null))) {
+            assertThat(objectMapper.writeValueAsString(dto)).isEqualTo(reflective.writeValueAsString(dto));
+        }
+    }
+
+    @Test
+    public void compactAndBinaryFormatsAreSmaller() throws Exception {
+        Page<MemberTeamDto> page = page(100);
+        ObjectMapper smile = smileConverter.getObjectMapper();
+        ObjectMapper cbor = cborConverter.getObjectMapper();
+
+        byte[] pageImplJson = objectMapper.writeValueAsBytes(page);
+        byte[] compactJson = objectMapper.writeValueAsBytes(PageResponse.of(page));
+        byte[] compactSmile = smile.writeValueAsBytes(PageResponse.of(page));
+        byte[] compactCbor = cbor.writeValueAsBytes(PageResponse.of(page));
+
+        report("PageImpl json", pageImplJson.length, cpuNanos(objectMapper, page));
+        report("compact json", compactJson.length, cpuNanos(objectMapper, PageResponse.of(page)));
+        report("compact smile", compactSmile.length, cpuNanos(smile, PageResponse.of(page)));
+        report("compact cbor", compactCbor.length, cpuNanos(cbor, PageResponse.of(page)));
+
+        assertThat(compactJson.length).isLessThan(pageImplJson.length);
+        assertThat(compactSmile.length).isLessThan(compactJson.length);
+        assertThat(compactCbor.length).isLessThan(compactJson.length);
+
+        //Smile 로 써도 같은 값으로 읽힌다
+        assertThat(smile.readTree(compactSmile)).isEqualTo(objectMapper.readTree(compactJson));
+    }
+
+    private Page<MemberTeamDto> page(int size) {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 4), "team" + (i % 4)));
+        }
+        return new PageImpl<>(content, PageRequest.of(0, size), 10_000);
+    }
+
+    private long cpuNanos(ObjectMapper mapper, Object value) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ROUNDS; i++) {
+            mapper.writeValueAsBytes(value);
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            mapper.writeValueAsBytes(value);
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / ROUNDS;
+    }
+
+    private void report(String name, int bytes, long cpuNanos) {
+        System.out.println(name + ": " + bytes + " bytes, " + cpuNanos / 1000 + " us cpu/response");
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberParallelScanner;
+import study.querydsl.repository.MemberParallelScanner.ScanResult;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+//구간마다 별도 EntityManager 로 읽으므로 데이터를 커밋하고 끝나면 지운다
+@SpringBootTest
+public class MemberParallelScanTest {
+
+    static final int MEMBER_COUNT = 3_000;
+
+    @Autowired
+    private MemberParallelScanner scanner;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void scanVisitsEveryMemberOnce() {
+        Map<Long, String> seen = new ConcurrentHashMap<>();
+
+        ScanResult result = scanner.scan(m -> {
+            //팀은 fetch join 으로 함께 읽는다
+            assertThat(seen.put(m.getId(), m.getTeam().getName())).isNull();
+        });
+
+        assertThat(result.getRows()).isEqualTo(MEMBER_COUNT);
+        assertThat(seen).hasSize(MEMBER_COUNT);
+        assertThat(seen.values()).containsOnly("teamA", "teamB");
+        System.out.println("rows = " + result.getRows() + ", ranges = " + result.getRanges()
+                + ", elapsed(ms) = " + result.getElapsedNanos() / 1_000_000);
+    }
+
+    @Test
+    public void scanWithPredicate() {
+        Map<Long, Member> seen = new ConcurrentHashMap<>();
+
+        ScanResult result = scanner.scan(member.age.lt(10), m -> seen.put(m.getId(), m));
+
+        assertThat(result.getRows()).isEqualTo(MEMBER_COUNT / 10);
+        assertThat(seen.values()).allMatch(m -> m.getAge() < 10);
+    }
+}
@@ -0,0 +1,126 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberReactiveRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.sql.R2dbcConfig;
+import study.querydsl.sql.R2dbcConnectionPool;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//R2DBC 는 별도 커넥션으로 조회하므로 데이터를 커밋하고 끝나면 지운다
+@SpringBootTest
+public class MemberReactiveRepositoryTest {
+
+    @Autowired
+    private MemberReactiveRepository memberReactiveRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchMatchesJpaRepository() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> reactive = memberReactiveRepository.search(condition).collectList().block();
+        List<MemberTeamDto> jpa = memberRepository.search(condition);
+
+        assertThat(reactive).extracting("username").containsExactly("member3", "member4");
+        assertThat(reactive).containsExactlyInAnyOrderElementsOf(jpa);
+    }
+
+    @Test
+    public void searchPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> page = memberReactiveRepository.searchPage(condition, pageRequest).block();
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+    }
+
+    @Test
+    public void searchPageUnpaged() {
+        Page<MemberTeamDto> page = memberReactiveRepository.searchPage(new MemberSearchCondition(), Pageable.unpaged()).block();
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+    }
+
+    @Test
+    public void streamIsDemandDriven() {
+        List<MemberTeamDto> firstTwo = memberReactiveRepository.search(new MemberSearchCondition())
+                .limitRate(1)
+                .take(2)
+                .collectList()
+                .block();
+
+        assertThat(firstTwo).extracting("username").containsExactly("member1", "member2");
+    }
+
+    @Test
+    public void emptyRangeDoesNotQuery() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(40);
+        condition.setAgeLoe(10);
+
+        assertThat(memberReactiveRepository.search(condition).collectList().block()).isEmpty();
+    }
+
+    @Test
+    public void connectionPoolDisposedOnDestroy() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.r2dbc.url", "r2dbc:pool:h2:mem:///pool-dispose-test");
+        R2dbcConnectionPool connectionPool = new R2dbcConfig().r2dbcConnectionPool(environment);
+        assertThat(connectionPool.isDisposed()).isFalse();
+
+        connectionPool.destroy();
+
+        assertThat(connectionPool.isDisposed()).isTrue();
+    }
+}
@@ -0,0 +1,159 @@
+package study.querydsl;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.plan.SqlCapture;
+import study.querydsl.repository.MemberReportRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+public class MemberReportRepositoryTest {
+
+    private static final Pattern OVER = Pattern.compile("(?i)\\bover\\s*\\(");
+    private static final Pattern SUBQUERY = Pattern.compile("(?i)\\(\\s*select\\b");
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+    }
+
+    @Autowired
+    private SqlCapture sqlCapture;
+    @Autowired
+    private MemberReportRepository memberReportRepository;
+    @Autowired
+    private EntityManager em;
+
+    private JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Test
+    public void windowFunctionsMatchSubqueries() {
+        saveTeams(2, 2);
+
+        assertThat(memberReportRepository.findAgeAtLeastAverage()).extracting("age").containsExactly(20, 19);
+        assertSameMembers(memberReportRepository.findAgeAtLeastAverage(), jpqlAgeAtLeastAverage());
+        assertThat(memberReportRepository.findAgeAtLeastTeamAverage()).extracting("username")
+                .containsExactly("member0_1", "member1_1");
+        assertSameMembers(memberReportRepository.findAgeAtLeastTeamAverage(), jpqlAgeAtLeastTeamAverage());
+        assertSameMembers(memberReportRepository.findOldestPerTeam(), jpqlOldestPerTeam());
+    }
+
+    @Test
+    public void rankWithinTeam() {
+        saveTeams(1, 3);
+
+        List<MemberRankDto> result = memberReportRepository.rankByAgeWithinTeam();
+
+        assertThat(result).extracting("username").containsExactly("member0_2", "member0_1", "member0_0");
+        assertThat(result).extracting("rank").containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void windowFunctionsVersusCorrelatedSubqueries() {
+        saveTeams(50, 100);
+
+        compare("age >= average", memberReportRepository::findAgeAtLeastAverage, this::jpqlAgeAtLeastAverage);
+        compare("age >= team average", memberReportRepository::findAgeAtLeastTeamAverage, this::jpqlAgeAtLeastTeamAverage);
+        compare("oldest per team", memberReportRepository::findOldestPerTeam, this::jpqlOldestPerTeam);
+    }
+
+    private void compare(String name, Supplier<List<MemberTeamDto>> window, Supplier<List<Member>> jpql) {
+        //첫 실행(파싱/계획 수립)은 시간에서 빼고 SQL 모양만 본다
+        //윈도 함수는 한 문장 안에서 한 번 읽고, JPQL 은 바깥 행마다 다시 도는 서브쿼리를 쓴다
+        List<String> windowSql = sqlCapture.capture(window);
+        List<String> jpqlSql = sqlCapture.capture(jpql);
+        assertThat(windowSql).as(name).singleElement().asString().containsPattern(OVER);
+        assertThat(jpqlSql).as(name).singleElement().asString()
+                .doesNotContainPattern(OVER)
+                .containsPattern(SUBQUERY);
+        em.clear();
+
+        long start = System.nanoTime();
+        List<MemberTeamDto> windowResult = window.get();
+        long windowNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<Member> jpqlResult = jpql.get();
+        long jpqlNanos = System.nanoTime() - start;
+
+        assertSameMembers(windowResult, jpqlResult);
+        System.out.println(name + ": rows = " + windowResult.size()
+                + ", window(ms) = " + windowNanos / 1_000_000
+                + ", correlated subquery(ms) = " + jpqlNanos / 1_000_000);
+        em.clear();
+    }
+
+    private void assertSameMembers(List<MemberTeamDto> window, List<Member> jpql) {
+        assertThat(window).extracting("memberId")
+                .containsExactlyElementsOf(jpql.stream().map(Member::getId).collect(Collectors.toList()));
+    }
+
+    private List<Member> jpqlAgeAtLeastAverage() {
+        QMember memberSub = new QMember("memberSub");
+        return queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(select(memberSub.age.avg()).from(memberSub)))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    private List<Member> jpqlAgeAtLeastTeamAverage() {
+        QMember memberSub = new QMember("memberSub");
+        return queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(select(memberSub.age.avg()).from(memberSub).where(memberSub.team.eq(member.team))))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    private List<Member> jpqlOldestPerTeam() {
+        QMember memberSub = new QMember("memberSub");
+        return queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(select(memberSub.age.max()).from(memberSub).where(memberSub.team.eq(member.team))))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    //팀 i 의 j 번째 회원 나이는 (j + 1) * 10 - i (팀마다 평균이 다르다)
+    private void saveTeams(int teamCount, int membersPerTeam) {
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < membersPerTeam; j++) {
+                em.persist(new Member("member" + i + "_" + j, (j + 1) * 10 - i, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -1,24 +1,43 @@
 package study.querydsl;
 
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
+import org.springframework.data.querydsl.binding.QuerydslPredicateBuilder;
+import org.springframework.data.util.ClassTypeInformation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.controller.MemberController;
+import study.querydsl.dto.ApproximatePage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.BlankSearchConditionException;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.UnsupportedSortException;
+import study.querydsl.repository.UsernameLowerRewriter;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -111,6 +130,182 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchPageApproximateFallsBackToExactCount() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, 10 * i, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        ApproximatePage<MemberTeamDto> result = memberRepository.searchPageApproximate(condition, PageRequest.of(0, 2));
+
+        assertThat(result.isTotalApproximate()).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).hasSize(2);
+    }
+
+    @Test
+    public void searchPageComplexSortTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 20, teamA));
+        em.persist(new Member("member2", 10, teamA));
+        em.persist(new Member("member3", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition,
+                PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+
+        //나이가 같으면 memberId 순서로 고정
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member3", "member2");
+
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(condition,
+                PageRequest.of(0, 3, Sort.by("teamName"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    public void searchBatchTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(30);
+        MemberSearchCondition nothing = new MemberSearchCondition();
+        nothing.setUsername("none");
+
+        List<List<MemberTeamDto>> result = memberRepository.searchBatch(List.of(byTeam, byAge, nothing));
+
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0)).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.get(1)).extracting("username").containsExactly("member3", "member4");
+        assertThat(result.get(2)).isEmpty();
+    }
+
+    @Test
+    public void searchBatchRejectsBlankCondition() {
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(30);
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername(" ");
+
+        assertThatThrownBy(() -> memberRepository.searchBatch(List.of(byAge, blank)))
+                .isInstanceOf(BlankSearchConditionException.class);
+    }
+
+    @Test
+    public void normalizedConditionTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+
+        MemberSearchCondition padded = new MemberSearchCondition();
+        padded.setUsername("  member1 ");
+        padded.setTeamName(" ");
+        MemberSearchCondition plain = new MemberSearchCondition();
+        plain.setUsername("member1");
+
+        assertThat(padded.cacheKey()).isEqualTo(plain.cacheKey());
+
+        //구분자나 "null" 이 들어간 값도 다른 조건과 같은 키가 되지 않는다
+        MemberSearchCondition nullText = new MemberSearchCondition();
+        nullText.setUsername("null");
+        assertThat(nullText.cacheKey()).isNotEqualTo(new MemberSearchCondition().cacheKey());
+        MemberSearchCondition embedded = new MemberSearchCondition();
+        embedded.setUsername("member1|ignoreCase=false|teamName=teamA");
+        MemberSearchCondition withTeam = new MemberSearchCondition();
+        withTeam.setUsername("member1");
+        withTeam.setTeamName("teamA");
+        assertThat(embedded.cacheKey()).isNotEqualTo(withTeam.cacheKey());
+        assertThat(memberRepository.search(padded)).extracting("username").containsExactly("member1");
+
+        MemberSearchCondition impossible = new MemberSearchCondition();
+        impossible.setAgeGoe(30);
+        impossible.setAgeLoe(20);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(impossible, PageRequest.of(0, 10));
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isZero();
+    }
+
+    @Test
+    public void ignoreCaseSearchTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("Member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("MEMBER1");
+        condition.setIgnoreCase(true);
+        MemberSearchCondition lowerCase = new MemberSearchCondition();
+        lowerCase.setUsername("member1");
+        lowerCase.setIgnoreCase(true);
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("Member1");
+        assertThat(condition.cacheKey()).isEqualTo(lowerCase.cacheKey());
+
+        condition.setIgnoreCase(false);
+        assertThat(memberRepository.search(condition)).isEmpty();
+    }
+
+    @Test
+    public void usernameLowerRewriteTest() {
+        em.persist(new Member("Member1", 10));
+        em.persist(new Member("member2", 20));
+
+        Predicate lower = QMember.member.username.lower().eq("member1");
+        Predicate rewritten = UsernameLowerRewriter.rewrite(lower);
+
+        assertThat(rewritten).isEqualTo(QMember.member.usernameLower.eq("member1"));
+        List<Member> result = new JPAQueryFactory(em)
+                .selectFrom(QMember.member)
+                .where(rewritten)
+                .fetch();
+        assertThat(result).extracting("username").containsExactly("Member1");
+        assertThat(UsernameLowerRewriter.rewrite(QMember.member.username.eq(
+                Expressions.stringTemplate("function('lower', {0})", QMember.member.username))))
+                .isEqualTo(QMember.member.username.eq(QMember.member.usernameLower));
+    }
+
     @Test
     public void querydslPredicateExecutorTest() {
         Team teamA = new Team("teamA");
@@ -135,6 +330,53 @@ public class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void predicateBindingTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("other4", 25, teamA));
+
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("username", "member");
+        params.add("age", "30");
+        params.add("age", "15");
+        params.add("team.id", teamA.getId().toString());
+        //허용 목록에 없는 경로는 무시된다
+        params.add("version", "0");
+        params.add("team.name", "teamB");
+
+        Predicate predicate = bindPredicate(params);
+
+        assertThat(predicate.toString()).doesNotContain("version", "team.name");
+        Page<MemberTeamDto> result = memberRepository.searchPage(predicate, PageRequest.of(0, 10));
+        assertThat(result.getContent()).extracting("username").containsExactly("member2");
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    public void predicateEndpointCapsPageSize(@Autowired MemberController memberController) {
+        int maxPageSize = 100;
+        for (int i = 0; i < maxPageSize + 10; i++) {
+            em.persist(new Member("member" + i, i));
+        }
 
+        Predicate predicate = bindPredicate(new LinkedMultiValueMap<>());
+        Page<MemberTeamDto> result = memberController.searchMemberV3(predicate, PageRequest.of(0, 1000));
 
+        assertThat(result.getContent()).hasSize(maxPageSize);
+        assertThatThrownBy(() -> memberController.searchMemberV3(predicate, PageRequest.of(1000, 100)))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    private Predicate bindPredicate(MultiValueMap<String, String> params) {
+        QuerydslBindings bindings = new QuerydslBindings();
+        memberRepository.customize(bindings, QMember.member);
+        return new QuerydslPredicateBuilder(DefaultConversionService.getSharedInstance(), SimpleEntityPathResolver.INSTANCE)
+                .getPredicate(ClassTypeInformation.from(Member.class), params, bindings);
+    }
 }
@@ -0,0 +1,184 @@
+package study.querydsl;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class MemberTeamChangeTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void changeTeamDoesNotInitializeMembers() {
+        Long[] ids = saveTwoTeams(100);
+        Member moving = em.find(Member.class, ids[2]);
+        Team oldTeam = moving.getTeam();
+        Team newTeam = em.find(Team.class, ids[1]);
+
+        moving.changeTeam(newTeam);
+
+        assertThat(Hibernate.isInitialized(oldTeam.getMembers())).isFalse();
+        assertThat(Hibernate.isInitialized(newTeam.getMembers())).isFalse();
+
+        em.flush();
+        em.clear();
+        assertThat(em.find(Team.class, ids[0]).getMembers()).hasSize(99);
+        assertThat(em.find(Team.class, ids[1]).getMembers()).hasSize(1);
+    }
+
+    @Test
+    public void changeTeamKeepsLoadedCollectionsConsistent() {
+        Long[] ids = saveTwoTeams(3);
+        Team oldTeam = em.find(Team.class, ids[0]);
+        Team newTeam = em.find(Team.class, ids[1]);
+        Member moving = oldTeam.getMembers().get(0);
+        newTeam.getMembers().size();
+
+        moving.changeTeam(newTeam);
+
+        assertThat(oldTeam.getMembers()).hasSize(2).doesNotContain(moving);
+        assertThat(newTeam.getMembers()).containsExactly(moving);
+    }
+
+    @Test
+    public void moveMembers() {
+        Long[] ids = saveTwoTeams(10);
+        Team oldTeam = em.find(Team.class, ids[0]);
+        Team newTeam = em.find(Team.class, ids[1]);
+        List<Long> memberIds = em.createQuery("select m.id from Member m where m.team = :team order by m.id", Long.class)
+                .setParameter("team", oldTeam)
+                .setMaxResults(4)
+                .getResultList();
+        //하나는 영속성 컨텍스트에 올려둔다
+        Member managed = em.find(Member.class, memberIds.get(0));
+
+        long moved = memberRepository.moveMembers(newTeam, memberIds);
+
+        assertThat(moved).isEqualTo(4);
+        assertThat(managed.getTeam()).isSameAs(newTeam);
+        assertThat(Hibernate.isInitialized(oldTeam.getMembers())).isFalse();
+
+        em.flush();
+        em.clear();
+        assertThat(em.find(Team.class, ids[0]).getMembers()).hasSize(6);
+        assertThat(em.find(Team.class, ids[1]).getMembers()).extracting("id")
+                .containsExactlyInAnyOrderElementsOf(memberIds);
+    }
+
+    //호출하는 쪽에 트랜잭션이 없어도 벌크 update 가 TransactionRequiredException 없이 커밋된다
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void moveMembersWithoutCallerTransaction() {
+        Team[] teams = transactionTemplate.execute(status -> {
+            Team oldTeam = new Team("old");
+            Team newTeam = new Team("new");
+            em.persist(oldTeam);
+            em.persist(newTeam);
+            for (int i = 0; i < 3; i++) {
+                em.persist(new Member("member" + i, i, oldTeam));
+            }
+            return new Team[]{oldTeam, newTeam};
+        });
+        try {
+            List<Long> memberIds = em.createQuery("select m.id from Member m where m.team.id = :teamId", Long.class)
+                    .setParameter("teamId", teams[0].getId())
+                    .getResultList();
+
+            long moved = memberRepository.moveMembers(teams[1], memberIds);
+
+            assertThat(moved).isEqualTo(3);
+            assertThat(em.createQuery("select count(m) from Member m where m.team.id = :teamId", Long.class)
+                    .setParameter("teamId", teams[1].getId())
+                    .getSingleResult()).isEqualTo(3);
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> teamIds = List.of(teams[0].getId(), teams[1].getId());
+                em.createQuery("delete from Member m where m.team.id in :teamIds")
+                        .setParameter("teamIds", teamIds)
+                        .executeUpdate();
+                em.createQuery("delete from Team t where t.id in :teamIds")
+                        .setParameter("teamIds", teamIds)
+                        .executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    public void changeTeamCostDoesNotDependOnTeamSize() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean enabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            long small = changeTeamStatements(statistics, 10);
+            long large = changeTeamStatements(statistics, 5_000);
+
+            //기존 팀 크기와 상관없이 옮긴 회원 수만큼의 update 만 나간다
+            assertThat(small).isPositive();
+            assertThat(large).isEqualTo(small);
+        } finally {
+            statistics.setStatisticsEnabled(enabled);
+        }
+    }
+
+    //기존 팀에서 회원 10명을 옮기고 flush 할 때까지 실행된 SQL 수
+    private long changeTeamStatements(Statistics statistics, int teamSize) {
+        Long[] ids = saveTwoTeams(teamSize);
+        List<Member> moving = em.createQuery("select m from Member m where m.team.id = :teamId", Member.class)
+                .setParameter("teamId", ids[0])
+                .setMaxResults(10)
+                .getResultList();
+        Team oldTeam = moving.get(0).getTeam();
+        Team newTeam = em.find(Team.class, ids[1]);
+
+        statistics.clear();
+        for (Member member : moving) {
+            member.changeTeam(newTeam);
+        }
+        em.flush();
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(Hibernate.isInitialized(oldTeam.getMembers())).isFalse();
+        assertThat(Hibernate.isInitialized(newTeam.getMembers())).isFalse();
+        em.clear();
+        return statements;
+    }
+
+    //{기존 팀 id, 빈 팀 id, 기존 팀 첫 회원 id}
+    private Long[] saveTwoTeams(int membersPerTeam) {
+        Team oldTeam = new Team("old");
+        Team newTeam = new Team("new");
+        em.persist(oldTeam);
+        em.persist(newTeam);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < membersPerTeam; i++) {
+            Member member = new Member("member" + i, i % 50, oldTeam);
+            em.persist(member);
+            members.add(member);
+        }
+        em.flush();
+        em.clear();
+        return new Long[]{oldTeam.getId(), newTeam.getId(), members.get(0).getId()};
+    }
+}
@@ -0,0 +1,173 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.ConcurrencyRetryTemplate;
+import study.querydsl.service.MemberWriteService;
+import study.querydsl.service.MemberWriteService.WriteStrategy;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//여러 스레드가 각자 트랜잭션을 커밋해야 하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다
+@SpringBootTest
+public class MemberWriteContentionTest {
+
+    static final int WRITERS = 64;
+    static final int WRITES_PER_WRITER = 5;
+
+    @Autowired
+    private MemberWriteService memberWriteService;
+    @Autowired
+    private ConcurrencyRetryTemplate retryTemplate;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    private Long memberId;
+    private Long teamId;
+
+    @BeforeEach
+    public void before() {
+        Member saved = transactionTemplate.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            Member member = new Member("member1", 0, team);
+            em.persist(member);
+            return member;
+        });
+        memberId = saved.getId();
+        teamId = saved.getTeam().getId();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void staleWriteIsRejected() {
+        Member stale = memberRepository.findById(memberId).get();
+        memberWriteService.addAge(memberId, 1, WriteStrategy.OPTIMISTIC);
+
+        stale.setAge(100);
+
+        assertThatThrownBy(() -> memberRepository.save(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(memberRepository.findById(memberId).get().getAge()).isEqualTo(1);
+    }
+
+    @Test
+    public void changeTeamBumpsOnlyMemberVersion() {
+        Long otherTeamId = transactionTemplate.execute(status -> {
+            Team other = new Team("teamB");
+            em.persist(other);
+            return other.getId();
+        });
+        Long teamVersion = transactionTemplate.execute(status -> em.find(Team.class, teamId).getVersion());
+
+        memberWriteService.changeTeam(memberId, otherTeamId, WriteStrategy.OPTIMISTIC);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = em.find(Member.class, memberId);
+            assertThat(member.getTeam().getId()).isEqualTo(otherTeamId);
+            assertThat(member.getVersion()).isEqualTo(1L);
+            assertThat(em.find(Team.class, teamId).getVersion()).isEqualTo(teamVersion);
+        });
+    }
+
+    @Test
+    public void expiredHotRowsAreEvicted() {
+        //낙관적 시도(1회)는 항상 충돌하고, 비관적 시도는 DB 없이 성공한 것으로 본다
+        ConcurrencyRetryTemplate conflicting = new ConcurrencyRetryTemplate(transactionTemplate, 5, 0, 0) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action, int attempts) {
+                if (attempts == 1) {
+                    throw new ObjectOptimisticLockingFailureException(Member.class, memberId);
+                }
+                return null;
+            }
+        };
+        MemberWriteService service = new MemberWriteService(em, conflicting, 1, 0);
+
+        for (long id = 1; id <= 100; id++) {
+            service.changeTeam(id, teamId, WriteStrategy.ADAPTIVE);
+        }
+
+        //hot 표시가 바로 만료되므로 마지막에 표시한 행만 남는다
+        assertThat(service.getHotRowCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void contentionBenchmark() throws Exception {
+        for (WriteStrategy strategy : WriteStrategy.values()) {
+            transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId).setAge(0));
+            long conflictsBefore = retryTemplate.getConflicts();
+            long exhaustedBefore = retryTemplate.getExhausted();
+
+            AtomicInteger succeeded = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < WRITES_PER_WRITER; j++) {
+                        try {
+                            memberWriteService.addAge(memberId, 1, strategy);
+                            succeeded.incrementAndGet();
+                        } catch (ConcurrencyFailureException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            long elapsed = System.nanoTime() - begin;
+            executor.shutdown();
+
+            int age = transactionTemplate.execute(status -> em.find(Member.class, memberId).getAge());
+            //성공한 쓰기는 하나도 유실되지 않는다
+            assertThat(age).isEqualTo(succeeded.get());
+
+            long attempts = succeeded.get() + retryTemplate.getConflicts() - conflictsBefore;
+            System.out.println(strategy + ": writes/sec = " + String.format("%.0f", succeeded.get() * 1e9 / elapsed)
+                    + ", aborted attempts = " + (retryTemplate.getConflicts() - conflictsBefore) + "/" + attempts
+                    + String.format(" (%.1f%%)", 100.0 * (retryTemplate.getConflicts() - conflictsBefore) / attempts)
+                    + ", gave up = " + (retryTemplate.getExhausted() - exhaustedBefore)
+                    + ", failed writes = " + failed.get());
+        }
+    }
+}
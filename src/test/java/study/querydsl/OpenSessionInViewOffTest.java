@@ -0,0 +1,108 @@
+package study.querydsl;
+
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class OpenSessionInViewOffTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void lazyAccessOutsideTransactionFails() {
+        Long memberId = saveMember();
+
+        Member member = memberRepository.findById(memberId).get();
+
+        //세션이 이미 닫혀서 Hibernate 자체 예외
+        assertThatThrownBy(() -> member.getTeam().getName())
+                .isInstanceOf(LazyInitializationException.class);
+
+        //트랜잭션 안에서는 정상 로딩
+        String teamName = transactionTemplate.execute(status ->
+                memberRepository.findById(memberId).get().getTeam().getName());
+        assertThat(teamName).isEqualTo("teamA");
+    }
+
+    @Test
+    public void guardRejectsLazyAccessOnOpenSessionWithoutTransaction() {
+        Long memberId = saveMember();
+
+        //세션이 열려 있으므로 가드가 없으면 그대로 로딩된다
+        EntityManager open = emf.createEntityManager();
+        try {
+            Member member = open.find(Member.class, memberId);
+            assertThatThrownBy(() -> member.getTeam().getName())
+                    .isInstanceOf(LazyInitializationException.class)
+                    .hasMessageContaining("outside a transaction");
+        } finally {
+            open.close();
+        }
+
+        EntityManager openForTeam = emf.createEntityManager();
+        try {
+            Team team = openForTeam.createQuery("select t from Team t", Team.class).getSingleResult();
+            assertThatThrownBy(() -> team.getMembers().size())
+                    .isInstanceOf(LazyInitializationException.class)
+                    .hasMessageContaining("outside a transaction");
+        } finally {
+            openForTeam.close();
+        }
+    }
+
+    @Test
+    public void guardAllowsLazyAccessInResourceLocalTransaction() {
+        Long memberId = saveMember();
+
+        //병렬 스캔처럼 스프링 밖에서 직접 연 트랜잭션
+        EntityManager local = emf.createEntityManager();
+        try {
+            local.getTransaction().begin();
+            Member member = local.find(Member.class, memberId);
+            assertThat(member.getTeam().getName()).isEqualTo("teamA");
+            assertThat(member.getTeam().getMembers()).hasSize(1);
+            local.getTransaction().commit();
+        } finally {
+            local.close();
+        }
+    }
+
+    private Long saveMember() {
+        return transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            return member1.getId();
+        });
+    }
+}
@@ -0,0 +1,141 @@
+package study.querydsl;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.OutboxEvent;
+import study.querydsl.entity.Team;
+import study.querydsl.outbox.OutboxRelay;
+import study.querydsl.outbox.OutboxSubscriber;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QOutboxEvent.outboxEvent;
+
+@SpringBootTest
+public class OutboxTest {
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private RecordingSubscriber subscriber;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements OutboxSubscriber {
+        final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvents(List<OutboxEvent> events) {
+            received.addAll(events);
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        subscriber.received.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(outboxEvent).execute();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void writesAreRecordedInSameTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("rolledBack", 10));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        List<OutboxEvent> events = queryFactory.selectFrom(outboxEvent)
+                .orderBy(outboxEvent.id.asc())
+                .fetch();
+
+        assertThat(events).extracting("aggregateType", "eventType")
+                .containsExactly(
+                        tuple("Team", "INSERT"),
+                        tuple("Member", "INSERT"),
+                        tuple("Member", "BULK_UPDATE"));
+
+        outboxRelay.relay();
+        assertThat(subscriber.received).extracting("id")
+                .containsAll(events.stream().map(OutboxEvent::getId).collect(Collectors.toList()));
+    }
+
+    //id 가 작아도 나중에 커밋된 이벤트는 더 큰 순번을 받고, 전달은 순번 순서다
+    @Test
+    public void deliveredInSequenceOrderAcrossLateCommits() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        //outbox 행을 먼저 insert 해서 id 를 받아 두고 늦게 커밋하는 쓰기
+        Future<?> slow = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            em.createNativeQuery("insert into outbox_event (aggregate_type, aggregate_id, event_type, payload, created_at, published)"
+                    + " values ('Team', 0, 'INSERT', '{\"name\":\"slow\"}', current_timestamp, false)").executeUpdate();
+            inserted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+            transactionTemplate.executeWithoutResult(status -> em.persist(new Team("fast")));
+            outboxRelay.relay();
+        } finally {
+            commit.countDown();
+            slow.get(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+        outboxRelay.relay();
+
+        List<OutboxEvent> received = subscriber.received.stream()
+                .filter(event -> "Team".equals(event.getAggregateType()))
+                .collect(Collectors.toList());
+        assertThat(received).extracting(event -> event.getPayload().contains("\"slow\"") ? "slow" : "fast")
+                .containsExactly("fast", "slow");
+        //slow 는 먼저 insert 되어 id 는 더 작지만 순번은 더 크다
+        assertThat(received.get(1).getId()).isLessThan(received.get(0).getId());
+        assertThat(received).extracting(OutboxEvent::getSequenceNumber).isSorted().doesNotContainNull();
+    }
+}
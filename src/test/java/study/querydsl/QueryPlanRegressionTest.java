@@ -0,0 +1,145 @@
+package study.querydsl;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.plan.QueryPlans;
+import study.querydsl.plan.SqlCapture;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 주요 쿼리 모양의 실행 계획을 스냅샷과 비교해서 인덱스를 타던 쿼리가 full scan 으로 바뀌는 것을 잡는다.
+ */
+@SpringBootTest
+@Transactional
+public class QueryPlanRegressionTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+    }
+
+    @Autowired
+    private SqlCapture sqlCapture;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberTestRepository memberTestRepository;
+    @Autowired
+    private EntityManager em;
+
+    private JPAQueryFactory queryFactory;
+    private QueryPlans queryPlans;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+        queryPlans = new QueryPlans(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchByUsername() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        List<String> plans = explain(sqlCapture.capture(() -> memberRepository.search(condition)));
+
+        assertThat(plans.get(0)).contains("IDX_MEMBER_USERNAME");
+        queryPlans.assertMatchesSnapshot("search-username", plans);
+    }
+
+    @Test
+    public void searchByTeamAndAge() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(30);
+
+        queryPlans.assertMatchesSnapshot("search-team-age",
+                explain(sqlCapture.capture(() -> memberRepository.search(condition))));
+    }
+
+    @Test
+    public void searchPageComplex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("username"));
+
+        List<String> statements = sqlCapture.capture(() -> memberRepository.searchPageComplex(condition, pageRequest));
+
+        //content + count
+        assertThat(statements).hasSize(2);
+        queryPlans.assertMatchesSnapshot("search-page-complex", explain(statements));
+    }
+
+    @Test
+    public void memberTestRepositoryPagination() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        PageRequest pageRequest = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "age"));
+
+        queryPlans.assertMatchesSnapshot("member-test-repository-apply-pagination",
+                explain(sqlCapture.capture(() -> memberTestRepository.applyPagination(condition, pageRequest))));
+        queryPlans.assertMatchesSnapshot("member-test-repository-apply-page",
+                explain(sqlCapture.capture(() -> memberTestRepository.searchPageByApplyPage(condition, pageRequest))));
+    }
+
+    @Test
+    public void subQueries() {
+        QMember memberSub = new QMember("memberSub");
+
+        queryPlans.assertMatchesSnapshot("subquery-max", explain(sqlCapture.capture(() -> queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(select(memberSub.age.max()).from(memberSub)))
+                .fetch())));
+        queryPlans.assertMatchesSnapshot("subquery-goe-avg", explain(sqlCapture.capture(() -> queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(select(memberSub.age.avg()).from(memberSub)))
+                .fetch())));
+        queryPlans.assertMatchesSnapshot("subquery-in", explain(sqlCapture.capture(() -> queryFactory
+                .selectFrom(member)
+                .where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10))))
+                .fetch())));
+        queryPlans.assertMatchesSnapshot("subquery-in-select", explain(sqlCapture.capture(() -> queryFactory
+                .select(member.username, select(memberSub.age.avg()).from(memberSub))
+                .from(member)
+                .fetch())));
+    }
+
+    private List<String> explain(List<String> statements) {
+        assertThat(statements).isNotEmpty();
+        return queryPlans.explain(statements);
+    }
+}
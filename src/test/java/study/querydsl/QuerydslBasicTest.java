@@ -16,8 +16,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberDtoProjection;
 import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
+import study.querydsl.dto.UserDtoProjection;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
@@ -565,6 +567,37 @@ public class QuerydslBasicTest {
         }
     }
 
+    @Test
+    public void findDtoByGeneratedProjection() {
+        List<MemberDto> result = jpaQueryFactory
+                .select(MemberDtoProjection.of(
+                        member.username,
+                        member.age))
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting("username").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result).extracting("age").containsExactly(10, 20, 30, 40);
+    }
+
+    @Test
+    public void findUserDtoByGeneratedProjection() {
+        QMember memberSub = new QMember("memberSub");
+        List<UserDto> result = jpaQueryFactory
+                .select(UserDtoProjection.of(
+                        member.username.as("name"),
+
+                        ExpressionUtils.as(JPAExpressions.
+                                select(memberSub.age.max())
+                                        .from(memberSub), "age")
+                ))
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting("name").containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result).extracting("age").containsOnly(40);
+    }
+
     @Test
     public void findDtoByConstructor() {
         List<MemberDto> result = jpaQueryFactory
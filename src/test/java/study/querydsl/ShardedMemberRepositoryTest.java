@@ -0,0 +1,114 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.shard.ShardedEntityManagers;
+import study.querydsl.shard.ShardedMemberRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "sharding.enabled=true",
+        "sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"
+})
+public class ShardedMemberRepositoryTest {
+
+    static final int TEAMS = 6;
+    static final int MEMBERS_PER_TEAM = 5;
+
+    @Autowired
+    private ShardedMemberRepository shardedMemberRepository;
+    @Autowired
+    private ShardedEntityManagers shards;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        for (int t = 0; t < TEAMS; t++) {
+            String teamName = "team" + t;
+            shardedMemberRepository.saveTeam(teamName);
+            for (int m = 0; m < MEMBERS_PER_TEAM; m++) {
+                saved.add(shardedMemberRepository.saveMember("member" + t + "_" + m, (t * 7 + m * 13) % 50, teamName));
+            }
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        for (int i = 0; i < shards.size(); i++) {
+            shards.write(i, em -> {
+                em.createQuery("delete from Member").executeUpdate();
+                return em.createQuery("delete from Team").executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    public void membersAreStoredWithTheirTeam() {
+        for (Member member : saved) {
+            String teamName = member.getTeam().getName();
+            assertThat(shards.shardOfId(member.getId())).isEqualTo(shards.shardOfTeam(teamName));
+        }
+        assertThat(saved.stream().map(Member::getId).distinct()).hasSize(saved.size());
+    }
+
+    @Test
+    public void teamNameSearchHitsOneShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+
+        List<MemberTeamDto> result = shardedMemberRepository.search(condition);
+
+        assertThat(result).hasSize(MEMBERS_PER_TEAM);
+        assertThat(result).extracting("teamName").containsOnly("team3");
+    }
+
+    @Test
+    public void scatterGatherSearchIsMergedInIdOrder() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> result = shardedMemberRepository.search(condition);
+
+        List<Long> expected = saved.stream()
+                .filter(m -> m.getAge() >= 20)
+                .map(Member::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        assertThat(result).extracting("memberId").containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void globalPaging() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(2, 4, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> page = shardedMemberRepository.searchPage(condition, pageRequest);
+
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparingInt(Member::getAge).reversed().thenComparing(Member::getId))
+                .skip(pageRequest.getOffset())
+                .limit(pageRequest.getPageSize())
+                .map(Member::getId)
+                .collect(Collectors.toList());
+        assertThat(page.getTotalElements()).isEqualTo(TEAMS * MEMBERS_PER_TEAM);
+        assertThat(page.getContent()).extracting("memberId").containsExactlyElementsOf(expected);
+    }
+}
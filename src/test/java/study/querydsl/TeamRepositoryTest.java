@@ -0,0 +1,68 @@
+package study.querydsl;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class TeamRepositoryTest {
+
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void findPageWithMembers() {
+        saveTeams(4, 3);
+
+        Page<Team> result = teamRepository.findPageWithMembers(PageRequest.of(0, 3));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("name").containsExactly("team0", "team1", "team2");
+        for (Team team : result.getContent()) {
+            assertThat(Hibernate.isInitialized(team.getMembers())).isTrue();
+            assertThat(team.getMembers()).hasSize(3);
+        }
+    }
+
+    @Test
+    public void findPageWithMembersLargeTeams() {
+        int teamCount = 20;
+        int membersPerTeam = 500;
+        saveTeams(teamCount, membersPerTeam);
+
+        long start = System.nanoTime();
+        Page<Team> result = teamRepository.findPageWithMembers(PageRequest.of(0, teamCount));
+        long loaded = result.getContent().stream().mapToLong(team -> team.getMembers().size()).sum();
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(loaded).isEqualTo((long) teamCount * membersPerTeam);
+        System.out.println("teams = " + teamCount + ", members = " + loaded
+                + ", elapsed(ms) = " + elapsed / 1_000_000);
+    }
+
+    private void saveTeams(int teamCount, int membersPerTeam) {
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            for (int j = 0; j < membersPerTeam; j++) {
+                em.persist(new Member("member" + i + "_" + j, j % 50, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,131 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.ConnectionLimitingDataSource;
+import study.querydsl.config.VirtualThreads;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 느린 외부 I/O(200ms) + 회원 검색 1회로 이뤄진 요청을 톰캣 기본 스레드 수(200)의 플랫폼 스레드 풀과
+ * virtual-threads.enabled 로 구성된 가상 스레드 executor 에서 각각 처리했을 때의 처리량 비교.
+ * 두 경우 모두 ConnectionLimitingDataSource 를 거치므로 동시에 빌려 간 커넥션은 max-connections 를 넘지 않아야 한다.
+ */
+@SpringBootTest(properties = {
+        "virtual-threads.enabled=true",
+        "virtual-threads.max-connections=" + VirtualThreadBenchmarkTest.MAX_CONNECTIONS
+})
+@EnabledIf("virtualThreadsAvailable")
+public class VirtualThreadBenchmarkTest {
+
+    static final int MAX_CONNECTIONS = 10;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int REQUESTS = 5000;
+    private static final long IO_MILLIS = 200;
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor applicationTaskExecutor;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+
+    private Long teamId;
+
+    static boolean virtualThreadsAvailable() {
+        return VirtualThreads.isAvailable();
+    }
+
+    @BeforeEach
+    public void before() {
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("benchmark");
+            em.persist(team);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("member" + i, i, team));
+            }
+            return team.getId();
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+            em.createQuery("delete from Team t where t.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+        });
+    }
+
+    @Test
+    public void virtualThreadsWithinConnectionLimit() throws Exception {
+        ConnectionLimitingDataSource limiter = dataSource.unwrap(ConnectionLimitingDataSource.class);
+        assertThat(limiter.getMaxConnections()).isEqualTo(MAX_CONNECTIONS);
+        assertThat(applicationTaskExecutor.submit(() -> Thread.currentThread().toString()).get())
+                .startsWith("VirtualThread");
+
+        ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        try {
+            //워밍업
+            run(platform::submit, 500);
+
+            double platformThroughput = run(platform::submit, REQUESTS);
+            double virtualThroughput = run(applicationTaskExecutor::submit, REQUESTS);
+
+            System.out.println("platform(" + PLATFORM_THREADS + ") requests/sec = " + String.format("%.0f", platformThroughput)
+                    + ", virtual requests/sec = " + String.format("%.0f", virtualThroughput)
+                    + ", peak connections = " + limiter.getPeakInUse() + "/" + MAX_CONNECTIONS);
+            //I/O 대기가 대부분이면 가상 스레드가 스레드 수에 묶이지 않는다
+            assertThat(virtualThroughput).isGreaterThan(platformThroughput);
+            assertThat(limiter.getPeakInUse()).isBetween(1, MAX_CONNECTIONS);
+            assertThat(limiter.getAvailablePermits()).isEqualTo(MAX_CONNECTIONS);
+        } finally {
+            platform.shutdown();
+        }
+    }
+
+    private double run(Function<Callable<List<MemberTeamDto>>, Future<List<MemberTeamDto>>> submit, int requests) throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        long start = System.nanoTime();
+        List<Future<List<MemberTeamDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(submit.apply(() -> {
+                Thread.sleep(IO_MILLIS);
+                return memberRepository.search(condition);
+            }));
+        }
+        for (Future<List<MemberTeamDto>> future : futures) {
+            assertThat(future.get()).extracting(MemberTeamDto::getUsername).containsExactly("member1");
+        }
+        return requests * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+}
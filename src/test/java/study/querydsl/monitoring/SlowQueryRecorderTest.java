@@ -0,0 +1,103 @@
+package study.querydsl.monitoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.p6spy.engine.common.StatementInformation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//스프링 컨텍스트 없이 기록기만 만들어서 확인한다. 주기 리포트는 start() 를 부르지 않으므로 돌지 않는다
+public class SlowQueryRecorderTest {
+
+    @TempDir
+    Path reportDir;
+
+    private ObjectMapper objectMapper;
+    private SlowQueryRecorder recorder;
+
+    @BeforeEach
+    public void before() {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setThresholdMs(100);
+        properties.setReportPath(reportDir.resolve("slow-query.json").toString());
+        properties.setReportHistory(2);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        recorder = new SlowQueryRecorder(properties, objectMapper);
+    }
+
+    @Test
+    public void literalsAndInListsCollapseToOneShape() {
+        String shape = QueryShapes.normalize("select * from member m where m.username = 'member1' and m.age > 10");
+        assertThat(QueryShapes.normalize("select *  from member m\n where m.username = 'it''s' and m.age > 2.5"))
+                .isEqualTo(shape);
+        assertThat(shape).isEqualTo("select * from member m where m.username = ? and m.age > ?");
+
+        assertThat(QueryShapes.normalize("select * from member where member_id in (?, ?)"))
+                .isEqualTo(QueryShapes.normalize("select * from member where member_id in (?,?,?,?,?,?,?,?)"))
+                .isEqualTo("select * from member where member_id in (?...)");
+        //식별자 안의 숫자는 그대로 둔다
+        assertThat(QueryShapes.normalize("select member0_.member_id as member_i1_1_ from member member0_"))
+                .contains("member0_.member_id", "member_i1_1_");
+    }
+
+    @Test
+    public void onlyStatementsOverThresholdAreRecorded() {
+        SlowQueryListener listener = new SlowQueryListener(recorder);
+
+        listener.onAfterAnyExecute(statement("select * from member where age = 1"), TimeUnit.MILLISECONDS.toNanos(99), null);
+        assertThat(recorder.topShapes()).isEmpty();
+
+        listener.onAfterAnyExecute(statement("select * from member where age = 1"), TimeUnit.MILLISECONDS.toNanos(100), null);
+        listener.onAfterAnyExecute(statement("select * from member where age = 2"), TimeUnit.MILLISECONDS.toNanos(300), null);
+
+        assertThat(recorder.topShapes()).hasSize(1);
+        SlowQueryRecorder.ShapeReport report = recorder.topShapes().get(0);
+        assertThat(report.getShape()).isEqualTo("select * from member where age = ?");
+        assertThat(report.getCount()).isEqualTo(2);
+        assertThat(report.getMaxMs()).isEqualTo(300.0);
+    }
+
+    @Test
+    public void reportDrainsIntervalAndRotates() throws Exception {
+        Path reportPath = Paths.get(reportDir.resolve("slow-query.json").toString());
+        recorder.record("select * from member where age = 1", "select * from member where age = 1",
+                TimeUnit.MILLISECONDS.toNanos(200));
+        recorder.record("select * from team where team_id = 1", "select * from team where team_id = 1",
+                TimeUnit.MILLISECONDS.toNanos(500));
+
+        recorder.writeReport();
+
+        JsonNode first = objectMapper.readTree(reportPath.toFile());
+        assertThat(first.get("shapes")).hasSize(2);
+        //합계 시간이 큰 모양이 먼저
+        assertThat(first.get("shapes").get(0).get("shape").asText()).isEqualTo("select * from team where team_id = ?");
+        assertThat(recorder.topShapes()).isEmpty();
+
+        //빈 구간은 파일을 쓰지 않는다
+        recorder.writeReport();
+        assertThat(Files.exists(Paths.get(reportPath + ".1"))).isFalse();
+
+        recorder.record("select * from member where age = 3", "select * from member where age = 3",
+                TimeUnit.MILLISECONDS.toNanos(150));
+        recorder.writeReport();
+
+        JsonNode second = objectMapper.readTree(reportPath.toFile());
+        assertThat(second.get("shapes")).hasSize(1);
+        assertThat(second.get("shapes").get(0).get("count").asLong()).isEqualTo(1);
+        assertThat(objectMapper.readTree(Paths.get(reportPath + ".1").toFile()).get("shapes")).hasSize(2);
+    }
+
+    private StatementInformation statement(String sql) {
+        StatementInformation statementInformation = new StatementInformation(null);
+        statementInformation.setStatementQuery(sql);
+        return statementInformation;
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.plan;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * H2 EXPLAIN 결과를 src/test/resources/plans 의 스냅샷과 비교한다.
+ * 스냅샷이 없으면 실패한다. -Dplans.update=true 로 실행하면 스냅샷을 (다시) 기록한다.
+ */
+public class QueryPlans {
+
+    static final Path SNAPSHOT_DIR = Paths.get("src", "test", "resources", "plans");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.\"])-?\\d+(?:\\.\\d+)?(?![\\w.\"])");
+    //H2 가 자동으로 붙이는 인덱스/제약조건 이름의 번호
+    private static final Pattern GENERATED_INDEX = Pattern.compile("\\b(PRIMARY_KEY|CONSTRAINT_INDEX|CONSTRAINT)_[0-9A-F]+\\b");
+
+    private final EntityManager em;
+
+    public QueryPlans(EntityManager em) {
+        this.em = em;
+    }
+
+    public List<String> explain(List<String> statements) {
+        List<String> plans = new ArrayList<>();
+        for (String sql : statements) {
+            plans.add(normalize(explain(sql)));
+        }
+        return plans;
+    }
+
+    //같은 트랜잭션의 커넥션에서 실행해야 아직 커밋 안 된 테스트 데이터 기준 계획이 나온다
+    private String explain(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    static String normalize(String plan) {
+        String normalized = STRING_LITERAL.matcher(plan).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = GENERATED_INDEX.matcher(normalized).replaceAll("$1_n");
+        return normalized.strip();
+    }
+
+    public void assertMatchesSnapshot(String name, List<String> plans) {
+        String actual = String.join("\n\n", plans) + "\n";
+        Path snapshot = SNAPSHOT_DIR.resolve(name + ".txt");
+        try {
+            if (Boolean.getBoolean("plans.update")) {
+                Files.createDirectories(SNAPSHOT_DIR);
+                Files.writeString(snapshot, actual, StandardCharsets.UTF_8);
+                return;
+            }
+            if (!Files.exists(snapshot)) {
+                fail("query plan snapshot of '" + name + "' is missing (" + snapshot
+                        + ", run with -Dplans.update=true to record it and commit the file)\n" + actual);
+            }
+            String expected = Files.readString(snapshot, StandardCharsets.UTF_8);
+            if (!expected.equals(actual)) {
+                fail("query plan of '" + name + "' changed (" + snapshot + ", rerun with -Dplans.update=true to accept)\n"
+                        + diff(expected, actual));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 줄 단위 LCS diff. 바뀐 줄 앞에 - (스냅샷) / + (현재) 를 붙인다.
+     */
+    static String diff(String expected, String actual) {
+        List<String> a = Arrays.asList(expected.split("\n", -1));
+        List<String> b = Arrays.asList(actual.split("\n", -1));
+        int[][] lcs = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; i--) {
+            for (int j = b.size() - 1; j >= 0; j--) {
+                lcs[i][j] = a.get(i).equals(b.get(j)) ? lcs[i + 1][j + 1] + 1 : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+        StringBuilder diff = new StringBuilder();
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            if (i < a.size() && j < b.size() && a.get(i).equals(b.get(j))) {
+                diff.append("  ").append(a.get(i++)).append('\n');
+                j++;
+            } else if (j < b.size() && (i == a.size() || lcs[i][j + 1] >= lcs[i + 1][j])) {
+                diff.append("+ ").append(b.get(j++)).append('\n');
+            } else {
+                diff.append("- ").append(a.get(i++)).append('\n');
+            }
+        }
+        return diff.toString();
+    }
+}
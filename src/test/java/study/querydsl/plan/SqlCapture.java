@@ -0,0 +1,44 @@
+package study.querydsl.plan;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * p6spy 를 거친 select 문을 값이 채워진 형태로 모은다. {@link #capture(Runnable)} 를 호출한 스레드의 쿼리만 모은다.
+ */
+public class SqlCapture extends SimpleJdbcEventListener {
+
+    private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+    public List<String> capture(Runnable action) {
+        return capture(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public List<String> capture(Supplier<?> action) {
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            action.get();
+        } finally {
+            captured.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> statements = captured.get();
+        String sql = statementInformation.getSqlWithValues();
+        if (statements != null && sql != null && sql.trim().regionMatches(true, 0, "select", 0, 6)) {
+            statements.add(sql);
+        }
+    }
+}